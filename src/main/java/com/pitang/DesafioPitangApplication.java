@@ -23,6 +23,10 @@ public class DesafioPitangApplication {
         TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
     }
 
+    /*
+     ****
+     * Fallback para conversões sem mapper próprio. Listagens usam UserMapper e CarMapper.
+     */
     @Bean
     public ModelMapper modelMapper() {
         return new ModelMapper();
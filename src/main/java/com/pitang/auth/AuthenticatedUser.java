@@ -0,0 +1,43 @@
+package com.pitang.auth;
+
+import java.util.UUID;
+
+/*
+ ****
+ * Usuário de um token válido. Fica no atributo ATTRIBUTE da requisição.
+ */
+public class AuthenticatedUser {
+
+    public static final String ATTRIBUTE = "com.pitang.auth.AuthenticatedUser";
+
+    private final UUID userId;
+    private final String login;
+    private final String tokenId;
+    private final long expiresAt;
+
+    public AuthenticatedUser(UUID userId, String login, String tokenId, long expiresAt) {
+        this.userId = userId;
+        this.login = login;
+        this.tokenId = tokenId;
+        this.expiresAt = expiresAt;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    /*
+     * Epoch em segundos.
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+}
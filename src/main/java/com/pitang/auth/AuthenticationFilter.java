@@ -0,0 +1,85 @@
+package com.pitang.auth;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pitang.config.property.DesafioApiProperty;
+import com.pitang.exceptionhandler.CustomExceptionHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.MessageSource;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Optional;
+
+/*
+ ****
+ * Valida o token do header Authorization (Bearer) com o TokenService, sem ir ao banco, e
+ * deixa o AuthenticatedUser na requisição. Token inválido é recusado com 401; sem token a
+ * requisição segue, a não ser que desafio-pitang.auth.required esteja ligado.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class AuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    private final DesafioApiProperty.Auth config;
+    private final TokenService tokenService;
+    private final MessageSource messageSource;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public AuthenticationFilter(DesafioApiProperty property, TokenService tokenService, MessageSource messageSource,
+                                ObjectMapper objectMapper) {
+        this.config = property.getAuth();
+        this.tokenService = tokenService;
+        this.messageSource = messageSource;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.startsWith(BEARER)) {
+            if (config.isRequired() && !isPublic(request)) {
+                reject(request, response);
+                return;
+            }
+            chain.doFilter(request, response);
+            return;
+        }
+
+        Optional<AuthenticatedUser> principal = tokenService.validate(authorization.substring(BEARER.length()));
+        if (!principal.isPresent()) {
+            reject(request, response);
+            return;
+        }
+        request.setAttribute(AuthenticatedUser.ATTRIBUTE, principal.get());
+        chain.doFilter(request, response);
+    }
+
+    private boolean isPublic(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return path.startsWith("/auth/") || path.startsWith("/actuator");
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.UNAUTHORIZED.value());
+        response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+        response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+        String userMessage = messageSource.getMessage("auth.invalid-token", null, request.getLocale());
+        objectMapper.writeValue(response.getOutputStream(),
+                Collections.singletonList(new CustomExceptionHandler.Error(userMessage, "12")));
+    }
+}
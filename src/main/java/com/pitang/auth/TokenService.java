@@ -0,0 +1,206 @@
+package com.pitang.auth;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.pitang.config.property.DesafioApiProperty;
+import com.pitang.event.EntityChangedEvent;
+import com.pitang.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/*
+ ****
+ * Tokens JWT assinados com HMAC-SHA256: a validação confere a assinatura e a expiração sem
+ * ir ao banco. Tokens validados ficam num cache limitado (até expirarem), e o caminho
+ * quente vira uma consulta ao cache. Logout e exclusão do usuário revogam os tokens em
+ * memória, e cada entrada é esquecida quando os tokens que ela revoga expiram. Só os
+ * logouts têm limite de tamanho; usuários excluídos ficam todos guardados por um ttl,
+ * senão um descarte por falta de espaço faria os tokens deles voltarem a valer.
+ */
+@Component
+public class TokenService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TokenService.class);
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final String HEADER = ENCODER.encodeToString(
+            "{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+    private final long ttlSeconds;
+    private final Mac mac;
+    private final Cache<String, AuthenticatedUser> principals;
+    private final Cache<String, Long> revokedTokens;
+    private final Cache<UUID, Long> revokedUsers;
+
+    @Autowired
+    public TokenService(DesafioApiProperty property, ObjectMapper objectMapper, MeterRegistry registry) {
+        this(property.getAuth(), objectMapper, registry, Clock.systemUTC());
+    }
+
+    TokenService(DesafioApiProperty.Auth auth, ObjectMapper objectMapper, MeterRegistry registry, Clock clock) {
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        this.ttlSeconds = auth.getTtlSeconds();
+        this.mac = mac(secret(auth));
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(auth.getPrincipalCacheSize())
+                .expireAfter(untilExpiration(AuthenticatedUser::getExpiresAt))
+                .recordStats()
+                .build();
+        this.revokedTokens = Caffeine.newBuilder()
+                .maximumSize(auth.getRevokedCacheSize())
+                .expireAfter(untilExpiration((Long expiresAt) -> expiresAt))
+                .build();
+        this.revokedUsers = Caffeine.newBuilder()
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build();
+        CaffeineCacheMetrics.monitor(registry, principals, "auth-principals");
+    }
+
+    public String issue(User user) {
+        long now = clock.instant().getEpochSecond();
+        ObjectNode claims = objectMapper.createObjectNode()
+                .put("sub", user.getId().toString())
+                .put("login", user.getLogin())
+                .put("jti", UUID.randomUUID().toString())
+                .put("iat", now)
+                .put("exp", now + ttlSeconds);
+        try {
+            String unsigned = HEADER + "." + ENCODER.encodeToString(objectMapper.writeValueAsBytes(claims));
+            return unsigned + "." + ENCODER.encodeToString(sign(unsigned));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public Optional<AuthenticatedUser> validate(String token) {
+        AuthenticatedUser principal = principals.getIfPresent(token);
+        if (principal == null) {
+            principal = parse(token);
+            if (principal == null)
+                return Optional.empty();
+            principals.put(token, principal);
+        }
+        if (principal.getExpiresAt() <= clock.instant().getEpochSecond() || isRevoked(principal))
+            return Optional.empty();
+        return Optional.of(principal);
+    }
+
+    public void revoke(AuthenticatedUser principal) {
+        revokedTokens.put(principal.getTokenId(), principal.getExpiresAt());
+    }
+
+    /*
+     ****
+     * Usuário excluído: os tokens emitidos até agora deixam de valer.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void on(EntityChangedEvent event) {
+        if (User.class.getSimpleName().equals(event.getAggregateType())
+                && event.getChange() == EntityChangedEvent.Change.DELETED)
+            revokedUsers.put(event.getAggregateId(), clock.instant().getEpochSecond());
+    }
+
+    private boolean isRevoked(AuthenticatedUser principal) {
+        if (revokedTokens.getIfPresent(principal.getTokenId()) != null)
+            return true;
+        Long revokedAt = revokedUsers.getIfPresent(principal.getUserId());
+        return revokedAt != null && principal.getExpiresAt() - ttlSeconds <= revokedAt;
+    }
+
+    private AuthenticatedUser parse(String token) {
+        int payloadStart = token.indexOf('.');
+        int signatureStart = token.lastIndexOf('.');
+        if (payloadStart < 0 || signatureStart <= payloadStart
+                || !HEADER.equals(token.substring(0, payloadStart)))
+            return null;
+        try {
+            byte[] signature = DECODER.decode(token.substring(signatureStart + 1));
+            if (!MessageDigest.isEqual(signature, sign(token.substring(0, signatureStart))))
+                return null;
+            JsonNode claims = objectMapper.readTree(DECODER.decode(token.substring(payloadStart + 1, signatureStart)));
+            return new AuthenticatedUser(UUID.fromString(claims.path("sub").asText()), claims.path("login").asText(),
+                    claims.path("jti").asText(), claims.path("exp").asLong());
+        } catch (IllegalArgumentException | IOException e) {
+            return null;
+        }
+    }
+
+    private byte[] sign(String unsigned) {
+        try {
+            Mac signer = (Mac) mac.clone();
+            return signer.doFinal(unsigned.getBytes(StandardCharsets.US_ASCII));
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private <V> Expiry<String, V> untilExpiration(ToLongFunction<V> expiresAt) {
+        return new Expiry<String, V>() {
+            @Override
+            public long expireAfterCreate(String key, V value, long currentTime) {
+                long seconds = expiresAt.applyAsLong(value) - clock.instant().getEpochSecond();
+                return TimeUnit.SECONDS.toNanos(Math.max(0, seconds));
+            }
+
+            @Override
+            public long expireAfterUpdate(String key, V value, long currentTime, long currentDuration) {
+                return expireAfterCreate(key, value, currentTime);
+            }
+
+            @Override
+            public long expireAfterRead(String key, V value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    private static byte[] secret(DesafioApiProperty.Auth auth) {
+        if (auth.getSecret() != null && !auth.getSecret().isEmpty())
+            return auth.getSecret().getBytes(StandardCharsets.UTF_8);
+        LOGGER.warn("desafio-pitang.auth.secret não configurado: tokens valem só até a aplicação reiniciar");
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        return secret;
+    }
+
+    private static Mac mac(byte[] secret) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(secret, ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.pitang.config;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.persistence.EntityManagerFactory;
+
+/*
+ ****
+ * As regiões do cache de segundo nível não passam pelo CacheManager do Spring, então o
+ * Actuator não as registra sozinho. Aqui cada região vira um conjunto de métricas
+ * cache.* (gets, puts, evictions, removals) com a tag cache=<região>.
+ */
+@Configuration
+public class CacheMetricsConfig {
+
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        return registry -> {
+            RegionFactory regionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                    .getServiceRegistry().getService(RegionFactory.class);
+            if (!(regionFactory instanceof JCacheRegionFactory))
+                return;
+
+            CacheManager cacheManager = ((JCacheRegionFactory) regionFactory).getCacheManager();
+            for (String name : cacheManager.getCacheNames()) {
+                JCacheMetrics.monitor(registry, cacheManager.getCache(name), Tags.empty());
+            }
+        };
+    }
+}
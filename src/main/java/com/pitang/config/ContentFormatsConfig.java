@@ -0,0 +1,43 @@
+package com.pitang.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.pitang.controller.support.ContentFormats;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/*
+ ****
+ * Accept/Content-Type application/cbor e application/x-jackson-smile nos controllers. Os
+ * conversores entram depois do JSON: com Accept curinga (ou sem Accept) a resposta continua
+ * em JSON.
+ */
+@Configuration
+public class ContentFormatsConfig {
+
+    @Bean
+    public ContentFormats contentFormats(ObjectMapper objectMapper, Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper cbor = builder.factory(new CBORFactory()).build();
+        ObjectMapper smile = builder.factory(new SmileFactory()).build();
+        return new ContentFormats(objectMapper, cbor, smile);
+    }
+
+    @Bean
+    public WebMvcConfigurer binaryMessageConverters(ContentFormats formats) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+                converters.add(new MappingJackson2CborHttpMessageConverter(formats.mapper(ContentFormats.CBOR)));
+                converters.add(new MappingJackson2SmileHttpMessageConverter(formats.mapper(ContentFormats.SMILE)));
+            }
+        };
+    }
+}
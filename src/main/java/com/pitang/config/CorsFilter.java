@@ -32,11 +32,12 @@ public class CorsFilter implements Filter {
 
         response.setHeader("Access-Control-Allow-Origin", desafioApiProperty.getOrigemPermitida());
         response.setHeader("Access-Control-Allow-Credentials", "true");
+        response.setHeader("Access-Control-Expose-Headers", "ETag, Location");
 
         if ("OPTIONS".equalsIgnoreCase(request.getMethod())
                 && desafioApiProperty.getOrigemPermitida().equalsIgnoreCase(request.getHeader("Origin"))) {
-            response.setHeader("Access-Control-Allow-Methods", "POST, GET, DELETE, PUT, OPTIONS");
-            response.setHeader("Access-Control-Allow-Headers", "Authorization, Content-Type, Accept");
+            response.setHeader("Access-Control-Allow-Methods", "POST, GET, DELETE, PUT, PATCH, OPTIONS");
+            response.setHeader("Access-Control-Allow-Headers", "Authorization, Content-Type, Accept, If-Match, If-None-Match");
             response.setHeader("Access-Control-Max-Age", "3600");
 
             response.setStatus(HttpServletResponse.SC_OK);
@@ -0,0 +1,43 @@
+package com.pitang.config;
+
+import com.pitang.config.property.DesafioApiProperty;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/*
+ ****
+ * Executor dos listeners assíncronos de eventos de domínio (@Async(EXECUTOR) junto com
+ * @TransactionalEventListener). Pool e fila são limitados; com a fila cheia vale o
+ * CallerRunsPolicy. O tamanho da fila aparece em executor.queued{name="domain-events"}.
+ */
+@Configuration
+@EnableAsync
+public class DomainEventsConfig {
+
+    public static final String EXECUTOR = "domainEventExecutor";
+
+    @Bean(name = EXECUTOR)
+    public ThreadPoolTaskExecutor domainEventExecutor(DesafioApiProperty property, MeterRegistry registry) {
+        DesafioApiProperty.Events events = property.getEvents();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("domain-events-");
+        executor.setCorePoolSize(events.getCorePoolSize());
+        executor.setMaxPoolSize(events.getMaxPoolSize());
+        executor.setQueueCapacity(events.getQueueCapacity());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.initialize();
+
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), "domain-events", Tags.empty())
+                .bindTo(registry);
+        return executor;
+    }
+}
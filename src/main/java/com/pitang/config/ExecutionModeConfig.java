@@ -0,0 +1,118 @@
+package com.pitang.config;
+
+import com.pitang.config.property.DesafioApiProperty;
+import com.pitang.config.property.DesafioApiProperty.Execution;
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+ ****
+ * Modo de execução das requisições (desafio-pitang.execution.mode). No modo VIRTUAL o
+ * conector do Tomcat entrega cada requisição a uma thread virtual em vez do pool de
+ * server.tomcat.max-threads; o pool do Hikari passa a ser o limite de concorrência no banco
+ * e recebe um tamanho fixo (desafio-pitang.execution.db-pool-size).
+ */
+@Configuration
+public class ExecutionModeConfig implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExecutionModeConfig.class);
+
+    private final DesafioApiProperty property;
+
+    private ExecutorService requestExecutor;
+
+    @Autowired
+    public ExecutionModeConfig(DesafioApiProperty property) {
+        this.property = property;
+    }
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> requestExecutorCustomizer() {
+        return factory -> {
+            if (property.getExecution().getMode() != Execution.Mode.VIRTUAL) {
+                return;
+            }
+            requestExecutor = newVirtualThreadPerTaskExecutor();
+            if (requestExecutor == null) {
+                return;
+            }
+            factory.addConnectorCustomizers(connector -> {
+                ProtocolHandler handler = connector.getProtocolHandler();
+                if (handler instanceof AbstractProtocol) {
+                    ((AbstractProtocol<?>) handler).setExecutor(requestExecutor);
+                }
+            });
+        };
+    }
+
+    /*
+     ****
+     * Static para não antecipar a criação desta configuração: o post processor precisa
+     * existir antes do DataSource, e nesse momento as propriedades ainda não foram ligadas.
+     */
+    @Bean
+    public static BeanPostProcessor hikariPoolSizePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource) {
+                    Execution execution = Binder.get(environment)
+                            .bind("desafio-pitang.execution", Execution.class)
+                            .orElseGet(Execution::new);
+                    int size = poolSize(execution, Runtime.getRuntime().availableProcessors());
+                    if (size > 0) {
+                        HikariDataSource dataSource = (HikariDataSource) bean;
+                        dataSource.setMaximumPoolSize(size);
+                        dataSource.setMinimumIdle(size);
+                    }
+                }
+                return bean;
+            }
+        };
+    }
+
+    static int poolSize(Execution execution, int cores) {
+        if (execution.getDbPoolSize() > 0) {
+            return execution.getDbPoolSize();
+        }
+        return execution.getMode() == Execution.Mode.VIRTUAL ? cores * 2 + 1 : 0;
+    }
+
+    /*
+     ****
+     * Executors.newVirtualThreadPerTaskExecutor() só existe a partir do Java 21; o projeto
+     * compila para o Java 11, por isso a chamada é feita por reflexão. Sem threads virtuais
+     * a aplicação segue com o pool de plataforma do Tomcat.
+     */
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            LOGGER.warn("Threads virtuais indisponíveis no Java {}; usando threads de plataforma",
+                    System.getProperty("java.version"));
+            return null;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (requestExecutor != null) {
+            requestExecutor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.pitang.config;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/*
+ ****
+ * GET das listagens (/cars e /users, paginadas ou por cursor) com ETag calculado sobre o
+ * corpo: se o cliente já tem a página (If-None-Match) a resposta é 304, sem corpo. O GET
+ * por id tem ETag e cache próprios (RepresentationCache); /export e /reactive não passam
+ * por aqui porque este filtro guarda o corpo inteiro em memória.
+ */
+@Configuration
+public class HttpCacheConfig {
+
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> carListEtagFilter() {
+        return listEtagFilter("carListEtagFilter", CacheControl.noCache(), "/cars");
+    }
+
+    /*
+     * Usuários têm dados pessoais: só o navegador do cliente pode guardar a resposta.
+     */
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> userListEtagFilter() {
+        return listEtagFilter("userListEtagFilter", CacheControl.noCache().cachePrivate(), "/users");
+    }
+
+    private static FilterRegistrationBean<ShallowEtagHeaderFilter> listEtagFilter(String name,
+                                                                                  CacheControl cacheControl,
+                                                                                  String urlPattern) {
+        String headerValue = cacheControl.getHeaderValue();
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration = new FilterRegistrationBean<>(
+                new ShallowEtagHeaderFilter() {
+                    @Override
+                    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                                    FilterChain filterChain) throws ServletException, IOException {
+                        if ("GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod()))
+                            response.setHeader(HttpHeaders.CACHE_CONTROL, headerValue);
+                        super.doFilterInternal(request, response, filterChain);
+                    }
+                });
+        registration.setName(name);
+        registration.addUrlPatterns(urlPattern);
+        return registration;
+    }
+}
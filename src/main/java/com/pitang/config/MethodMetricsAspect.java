@@ -0,0 +1,90 @@
+package com.pitang.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ ****
+ * Timer "desafio.method" para cada método dos serviços e dos repositórios, com as tags
+ * layer, class, method e exception. Os endpoints já são medidos pelo Actuator em
+ * http.server.requests; os histogramas são ligados em application.properties.
+ */
+@Aspect
+@Component
+public class MethodMetricsAspect {
+
+    static final String METRIC = "desafio.method";
+
+    private final MeterRegistry registry;
+    private final Map<Class<?>, String> classNames = new ConcurrentHashMap<>();
+
+    @Autowired
+    public MethodMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("within(com.pitang.service..*) && execution(public * *(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, "service");
+    }
+
+    /*
+     ****
+     * Os repositórios são proxies do Spring Data; o padrão com Repository+ também pega
+     * os métodos herdados de JpaRepository (findAll, save, ...).
+     */
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, "repository");
+    }
+
+    private Object time(ProceedingJoinPoint joinPoint, String layer) throws Throwable {
+        Timer.Sample sample = Timer.start(registry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(METRIC)
+                    .tag("layer", layer)
+                    .tag("class", classNameOf(joinPoint.getThis().getClass()))
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .register(registry));
+        }
+    }
+
+    /*
+     ****
+     * Para proxies (CGLIB ou JDK) o nome usado é o da classe ou interface da aplicação.
+     */
+    private String classNameOf(Class<?> type) {
+        return classNames.computeIfAbsent(type, MethodMetricsAspect::applicationType);
+    }
+
+    private static String applicationType(Class<?> type) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            if (isApplicationType(current))
+                return current.getSimpleName();
+            for (Class<?> candidate : current.getInterfaces()) {
+                if (isApplicationType(candidate))
+                    return candidate.getSimpleName();
+            }
+        }
+        return type.getSimpleName();
+    }
+
+    private static boolean isApplicationType(Class<?> type) {
+        return type.getName().startsWith("com.pitang.") && !type.getName().contains("$$");
+    }
+}
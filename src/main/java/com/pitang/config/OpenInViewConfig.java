@@ -0,0 +1,22 @@
+package com.pitang.config;
+
+import com.fasterxml.jackson.datatype.hibernate5.Hibernate5Module;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*
+ ****
+ * Quando spring.jpa.open-in-view=false a sessão é fechada ao fim do serviço, então o
+ * Jackson não pode mais disparar o carregamento de associações lazy. O Hibernate5Module
+ * serializa essas associações como null em vez de lançar LazyInitializationException.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.jpa.open-in-view", havingValue = "false")
+public class OpenInViewConfig {
+
+    @Bean
+    public Hibernate5Module hibernate5Module() {
+        return new Hibernate5Module();
+    }
+}
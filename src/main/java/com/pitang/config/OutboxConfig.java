@@ -0,0 +1,30 @@
+package com.pitang.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pitang.config.property.DesafioApiProperty;
+import com.pitang.outbox.FileOutboxSink;
+import com.pitang.outbox.LogOutboxSink;
+import com.pitang.outbox.OutboxSink;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.nio.file.Paths;
+
+/*
+ ****
+ * Sink padrão do outbox: arquivo NDJSON se desafio-pitang.outbox.file estiver
+ * configurado, senão o log. Outro destino entra declarando um OutboxSink @Primary.
+ */
+@Configuration
+@EnableScheduling
+public class OutboxConfig {
+
+    @Bean
+    public OutboxSink outboxSink(DesafioApiProperty property, ObjectMapper objectMapper) {
+        String file = property.getOutbox().getFile();
+        if (file != null && !file.isEmpty())
+            return new FileOutboxSink(Paths.get(file), objectMapper);
+        return new LogOutboxSink();
+    }
+}
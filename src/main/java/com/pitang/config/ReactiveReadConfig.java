@@ -0,0 +1,72 @@
+package com.pitang.config;
+
+import com.pitang.config.property.DesafioApiProperty;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/*
+ ****
+ * A API reativa (/reactive/**) roda sobre o suporte assíncrono do Spring MVC: o handler
+ * devolve um Flux/Mono e a thread do Tomcat é liberada. As consultas JDBC, que continuam
+ * bloqueantes, rodam no scheduler limitado READ_SCHEDULER; a escrita dos elementos na
+ * resposta roda no executor assíncrono do MVC, também limitado.
+ */
+@Configuration
+public class ReactiveReadConfig implements WebMvcConfigurer {
+
+    public static final String READ_SCHEDULER = "reactiveReadScheduler";
+    public static final String WRITE_EXECUTOR = "mvcAsyncExecutor";
+
+    private final DesafioApiProperty property;
+    private final MeterRegistry registry;
+
+    @Autowired
+    public ReactiveReadConfig(DesafioApiProperty property, MeterRegistry registry) {
+        this.property = property;
+        this.registry = registry;
+    }
+
+    @Bean(name = READ_SCHEDULER, destroyMethod = "dispose")
+    public Scheduler reactiveReadScheduler() {
+        DesafioApiProperty.Reactive reactive = property.getReactive();
+        ThreadPoolTaskExecutor executor = executor("reactive-reads-", reactive.getReadThreads(),
+                reactive.getQueueCapacity());
+        return Schedulers.fromExecutorService(executor.getThreadPoolExecutor());
+    }
+
+    @Bean(name = WRITE_EXECUTOR)
+    public ThreadPoolTaskExecutor mvcAsyncExecutor() {
+        DesafioApiProperty.Reactive reactive = property.getReactive();
+        return executor("mvc-async-", reactive.getWriteThreads(), reactive.getQueueCapacity());
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(mvcAsyncExecutor());
+    }
+
+    private ThreadPoolTaskExecutor executor(String prefix, int threads, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(prefix);
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), prefix.substring(0, prefix.length() - 1),
+                Tags.empty()).bindTo(registry);
+        return executor;
+    }
+}
@@ -2,6 +2,9 @@ package com.pitang.config.property;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.HashSet;
+import java.util.Set;
+
 @ConfigurationProperties("desafio-pitang")
 public class DesafioApiProperty {
 
@@ -9,6 +12,24 @@ public class DesafioApiProperty {
 
     private final Seguranca seguranca = new Seguranca();
 
+    private final Search search = new Search();
+
+    private final Events events = new Events();
+
+    private final Outbox outbox = new Outbox();
+
+    private final Execution execution = new Execution();
+
+    private final Reactive reactive = new Reactive();
+
+    private final HttpCache httpCache = new HttpCache();
+
+    private final RateLimit rateLimit = new RateLimit();
+
+    private final Password password = new Password();
+
+    private final Auth auth = new Auth();
+
     public String getOrigemPermitida() {
         return origemPermitida;
     }
@@ -21,6 +42,42 @@ public class DesafioApiProperty {
         return seguranca;
     }
 
+    public Search getSearch() {
+        return search;
+    }
+
+    public Events getEvents() {
+        return events;
+    }
+
+    public Outbox getOutbox() {
+        return outbox;
+    }
+
+    public Execution getExecution() {
+        return execution;
+    }
+
+    public Reactive getReactive() {
+        return reactive;
+    }
+
+    public HttpCache getHttpCache() {
+        return httpCache;
+    }
+
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    public Password getPassword() {
+        return password;
+    }
+
+    public Auth getAuth() {
+        return auth;
+    }
+
     public static class Seguranca {
 
         private boolean enableHttps;
@@ -34,4 +91,474 @@ public class DesafioApiProperty {
         }
     }
 
+    public static class Search {
+
+        private boolean enabled = true;
+
+        /*
+         * Acima deste número de resultados a busca volta para a consulta LIKE. Abaixo
+         * dele, só os ids da página vão ao banco (nunca mais de InClauses.LIMIT por IN).
+         */
+        private int maxMatches = 10_000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxMatches() {
+            return maxMatches;
+        }
+
+        public void setMaxMatches(int maxMatches) {
+            this.maxMatches = maxMatches;
+        }
+    }
+
+    public static class Events {
+
+        private int corePoolSize = 2;
+
+        private int maxPoolSize = 4;
+
+        /*
+         * Com a fila cheia o evento é processado na própria thread que o publicou,
+         * segurando quem produz mais rápido do que os listeners consomem.
+         */
+        private int queueCapacity = 1_000;
+
+        public int getCorePoolSize() {
+            return corePoolSize;
+        }
+
+        public void setCorePoolSize(int corePoolSize) {
+            this.corePoolSize = corePoolSize;
+        }
+
+        public int getMaxPoolSize() {
+            return maxPoolSize;
+        }
+
+        public void setMaxPoolSize(int maxPoolSize) {
+            this.maxPoolSize = maxPoolSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    public static class Outbox {
+
+        private boolean relayEnabled = true;
+
+        private int batchSize = 500;
+
+        private long pollIntervalMs = 1_000;
+
+        /*
+         * Registros entregues ficam na tabela por este tempo antes de serem apagados.
+         */
+        private long retentionMinutes = 60;
+
+        /*
+         * Arquivo NDJSON onde o relay grava as mensagens. Sem arquivo, as mensagens vão
+         * para o log.
+         */
+        private String file;
+
+        public boolean isRelayEnabled() {
+            return relayEnabled;
+        }
+
+        public void setRelayEnabled(boolean relayEnabled) {
+            this.relayEnabled = relayEnabled;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getPollIntervalMs() {
+            return pollIntervalMs;
+        }
+
+        public void setPollIntervalMs(long pollIntervalMs) {
+            this.pollIntervalMs = pollIntervalMs;
+        }
+
+        public long getRetentionMinutes() {
+            return retentionMinutes;
+        }
+
+        public void setRetentionMinutes(long retentionMinutes) {
+            this.retentionMinutes = retentionMinutes;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+    }
+
+    public static class Execution {
+
+        public enum Mode { PLATFORM, VIRTUAL }
+
+        /*
+         * PLATFORM usa o pool de threads do Tomcat (server.tomcat.max-threads). VIRTUAL
+         * atende cada requisição numa thread virtual (Java 21+); em JVMs sem threads
+         * virtuais a aplicação volta para PLATFORM.
+         */
+        private Mode mode = Mode.PLATFORM;
+
+        /*
+         * Tamanho fixo do pool do Hikari. Com threads virtuais o pool passa a ser o único
+         * limite de concorrência no banco; 0 usa núcleos * 2 + 1 no modo VIRTUAL e mantém
+         * a configuração do Hikari no modo PLATFORM.
+         */
+        private int dbPoolSize;
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public void setMode(Mode mode) {
+            this.mode = mode;
+        }
+
+        public int getDbPoolSize() {
+            return dbPoolSize;
+        }
+
+        public void setDbPoolSize(int dbPoolSize) {
+            this.dbPoolSize = dbPoolSize;
+        }
+    }
+
+    public static class Reactive {
+
+        /*
+         * Threads que executam as consultas JDBC da API reativa; o ideal é não passar do
+         * tamanho do pool do Hikari, senão as threads ficam esperando conexão.
+         */
+        private int readThreads = 10;
+
+        /*
+         * Threads que escrevem os elementos dos Flux na resposta (suporte assíncrono do MVC).
+         */
+        private int writeThreads = 8;
+
+        private int queueCapacity = 10000;
+
+        private int pageSize = 200;
+
+        /*
+         * Elementos da listagem em array (application/json), montada inteira antes de ser
+         * escrita: sem limit, ou com limit maior, a listagem para aqui. O stream não tem teto.
+         */
+        private int maxArraySize = 1000;
+
+        public int getReadThreads() {
+            return readThreads;
+        }
+
+        public void setReadThreads(int readThreads) {
+            this.readThreads = readThreads;
+        }
+
+        public int getWriteThreads() {
+            return writeThreads;
+        }
+
+        public void setWriteThreads(int writeThreads) {
+            this.writeThreads = writeThreads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getPageSize() {
+            return pageSize;
+        }
+
+        public void setPageSize(int pageSize) {
+            this.pageSize = pageSize;
+        }
+
+        public int getMaxArraySize() {
+            return maxArraySize;
+        }
+
+        public void setMaxArraySize(int maxArraySize) {
+            this.maxArraySize = maxArraySize;
+        }
+    }
+
+    public static class HttpCache {
+
+        /*
+         * Respostas serializadas de GET /cars/{id} e GET /users/{id} mantidas em memória.
+         */
+        private long maxEntries = 10000;
+
+        private long ttlSeconds = 600;
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public long getTtlSeconds() {
+            return ttlSeconds;
+        }
+
+        public void setTtlSeconds(long ttlSeconds) {
+            this.ttlSeconds = ttlSeconds;
+        }
+    }
+
+    public static class RateLimit {
+
+        private boolean enabled = true;
+
+        /*
+         * Rajada máxima por cliente, em fichas.
+         */
+        private int capacity = 200;
+
+        private int refillPerSecond = 100;
+
+        /*
+         * Fichas gastas por uma busca (GET com firstName ou model), que varre a tabela.
+         */
+        private int searchCost = 5;
+
+        /*
+         * Header com a chave do cliente; sem ele o cliente é identificado pelo IP.
+         */
+        private String apiKeyHeader = "X-API-Key";
+
+        /*
+         * Chaves aceitas no header, cada uma com seu próprio balde. Chave desconhecida conta
+         * pelo IP: senão bastaria mandar uma chave nova a cada requisição para ter outro balde.
+         */
+        private Set<String> apiKeys = new HashSet<>();
+
+        /*
+         * Quantidade de baldes (potência de 2). Clientes cujo hash cai no mesmo balde
+         * dividem o limite.
+         */
+        private int buckets = 16384;
+
+        /*
+         * Requisições simultâneas acima disso são recusadas com 503 (0 desliga).
+         */
+        private int maxInFlight = 256;
+
+        /*
+         * Threads esperando conexão do Hikari acima disso também recusam com 503 (0 desliga).
+         */
+        private int maxPendingConnections = 32;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public int getRefillPerSecond() {
+            return refillPerSecond;
+        }
+
+        public void setRefillPerSecond(int refillPerSecond) {
+            this.refillPerSecond = refillPerSecond;
+        }
+
+        public int getSearchCost() {
+            return searchCost;
+        }
+
+        public void setSearchCost(int searchCost) {
+            this.searchCost = searchCost;
+        }
+
+        public String getApiKeyHeader() {
+            return apiKeyHeader;
+        }
+
+        public void setApiKeyHeader(String apiKeyHeader) {
+            this.apiKeyHeader = apiKeyHeader;
+        }
+
+        public Set<String> getApiKeys() {
+            return apiKeys;
+        }
+
+        public void setApiKeys(Set<String> apiKeys) {
+            this.apiKeys = apiKeys;
+        }
+
+        public int getBuckets() {
+            return buckets;
+        }
+
+        public void setBuckets(int buckets) {
+            this.buckets = buckets;
+        }
+
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public void setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+
+        public int getMaxPendingConnections() {
+            return maxPendingConnections;
+        }
+
+        public void setMaxPendingConnections(int maxPendingConnections) {
+            this.maxPendingConnections = maxPendingConnections;
+        }
+    }
+
+    public static class Password {
+
+        /*
+         * Custo do bcrypt (log2 das rodadas): cada +1 dobra o tempo de cada hash. Hashes com
+         * custo menor são refeitos no próximo login.
+         */
+        private int cost = 10;
+
+        /*
+         * Threads do pool de hash; 0 usa o número de processadores.
+         */
+        private int threads;
+
+        private int queueCapacity = 1_000;
+
+        public int getCost() {
+            return cost;
+        }
+
+        public void setCost(int cost) {
+            this.cost = cost;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    public static class Auth {
+
+        /*
+         * Chave do HMAC dos tokens. Vazia, uma chave aleatória é gerada na subida e os tokens
+         * deixam de valer quando a aplicação reinicia.
+         */
+        private String secret;
+
+        private long ttlSeconds = 3600;
+
+        /*
+         * Exige token em toda requisição fora de /auth e /actuator.
+         */
+        private boolean required;
+
+        private long principalCacheSize = 10_000;
+
+        /*
+         * Tokens revogados por logout ficam guardados até expirar. Deve comportar os logouts
+         * de um ttl: um token tirado da lista por falta de espaço volta a valer até expirar.
+         * Não limita a revogação por exclusão do usuário, que vale sempre por um ttl inteiro.
+         */
+        private long revokedCacheSize = 100_000;
+
+        public String getSecret() {
+            return secret;
+        }
+
+        public void setSecret(String secret) {
+            this.secret = secret;
+        }
+
+        public long getTtlSeconds() {
+            return ttlSeconds;
+        }
+
+        public void setTtlSeconds(long ttlSeconds) {
+            this.ttlSeconds = ttlSeconds;
+        }
+
+        public boolean isRequired() {
+            return required;
+        }
+
+        public void setRequired(boolean required) {
+            this.required = required;
+        }
+
+        public long getPrincipalCacheSize() {
+            return principalCacheSize;
+        }
+
+        public void setPrincipalCacheSize(long principalCacheSize) {
+            this.principalCacheSize = principalCacheSize;
+        }
+
+        public long getRevokedCacheSize() {
+            return revokedCacheSize;
+        }
+
+        public void setRevokedCacheSize(long revokedCacheSize) {
+            this.revokedCacheSize = revokedCacheSize;
+        }
+    }
+
 }
@@ -0,0 +1,74 @@
+package com.pitang.controller;
+
+import com.pitang.auth.AuthenticatedUser;
+import com.pitang.auth.TokenService;
+import com.pitang.exceptionhandler.CustomExceptionHandler;
+import com.pitang.model.User;
+import com.pitang.model.dto.LoginDTO;
+import com.pitang.model.dto.TokenDTO;
+import com.pitang.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.MessageSource;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/auth")
+public class AuthController {
+
+	private final UserService userService;
+	private final TokenService tokenService;
+	private final MessageSource messageSource;
+
+	@Autowired
+	public AuthController(UserService userService, TokenService tokenService, MessageSource messageSource) {
+		this.userService = userService;
+		this.tokenService = tokenService;
+		this.messageSource = messageSource;
+	}
+
+	@PostMapping("/login")
+	public ResponseEntity<?> login(@Valid @RequestBody LoginDTO login, BindingResult result) {
+		if (result.hasErrors()) {
+			List<CustomExceptionHandler.Error> errors = new ArrayList<>();
+			result.getAllErrors()
+					.forEach(error -> errors.add(new CustomExceptionHandler.Error(error.getDefaultMessage(), "5")));
+			return ResponseEntity.badRequest().body(errors);
+		}
+
+		Optional<User> user = userService.authenticate(login.getLogin(), login.getPassword());
+		if (!user.isPresent()) {
+			String customMessageUser = messageSource.getMessage("auth.invalid-credentials", null,
+					LocaleContextHolder.getLocale());
+			return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+					.body(Collections.singletonList(new CustomExceptionHandler.Error(customMessageUser, "11")));
+		}
+		return ResponseEntity.ok(new TokenDTO(tokenService.issue(user.get()), tokenService.getTtlSeconds()));
+	}
+
+	/*
+	 ****
+	 * Revoga o token usado na requisição.
+	 */
+	@PostMapping("/logout")
+	public ResponseEntity<Void> logout(
+			@RequestAttribute(name = AuthenticatedUser.ATTRIBUTE, required = false) AuthenticatedUser principal) {
+		if (principal == null)
+			return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+		tokenService.revoke(principal);
+		return ResponseEntity.noContent().build();
+	}
+}
@@ -1,43 +1,64 @@
 package com.pitang.controller;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 import java.util.UUID;
 
 import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.Validator;
 
-import org.modelmapper.ModelMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.pitang.controller.errors.ErrorsGeneric;
+import com.pitang.controller.support.KeysetPaging;
+import com.pitang.controller.support.NdjsonWriter;
+import com.pitang.controller.support.RepresentationCache;
+import com.pitang.controller.support.VersionETag;
 import com.pitang.event.RecursoCriadoEvent;
 import com.pitang.exceptionhandler.CustomExceptionHandler;
+import com.pitang.mapper.CarMapper;
 import com.pitang.model.Car;
+import com.pitang.model.User;
+import com.pitang.model.dto.BatchItemResultDTO;
 import com.pitang.model.dto.CarDTO;
+import com.pitang.model.dto.CursorPageDTO;
 import com.pitang.repository.CarRepository;
+import com.pitang.search.SearchService;
+import com.pitang.service.BatchItemResult;
 import com.pitang.service.CarService;
+import com.pitang.service.support.MergePatcher;
+import com.pitang.service.exception.CarOwnerNotFoundException;
 import com.pitang.service.exception.CarWithLicensePlateDuplicated;
 
 
@@ -49,27 +70,66 @@ public class CarController {
 	private final CarService carService;
 	private final MessageSource messageSource;
 	private final ApplicationEventPublisher publisher;
-	private final ModelMapper carMapper;
+	private final CarMapper carMapper;
+	private final ObjectMapper objectMapper;
+	private final SearchService searchService;
+	private final RepresentationCache representationCache;
+	private final Validator validator;
 
 	@Autowired
 	public CarController(CarRepository carRepository, CarService carService, MessageSource messageSource,
-			ApplicationEventPublisher publisher, ModelMapper carMapper) {
+			ApplicationEventPublisher publisher, CarMapper carMapper, ObjectMapper objectMapper,
+			SearchService searchService, RepresentationCache representationCache, Validator validator) {
 		this.carRepository = carRepository;
 		this.carService = carService;
 		this.messageSource = messageSource;
 		this.publisher = publisher;
 		this.carMapper = carMapper;
+		this.objectMapper = objectMapper;
+		this.searchService = searchService;
+		this.representationCache = representationCache;
+		this.validator = validator;
 	}
 	
 	@GetMapping
 	public Page<CarDTO> getAll(Pageable pageable) {
-		return carRepository.findAll(pageable).map(car -> carMapper.map(car, CarDTO.class));
+		return carRepository.findAll(pageable).map(carMapper::toDTO);
+	}
+
+	@GetMapping(params = "after")
+	public CursorPageDTO<CarDTO> getAllAfter(@RequestParam String after,
+			@RequestParam(defaultValue = "20") int size) {
+		UUID lastId = KeysetPaging.decode(after);
+		List<Car> cars = lastId == null
+				? carRepository.findAllByOrderByIdAsc(KeysetPaging.probe(size))
+				: carRepository.findByIdGreaterThanOrderByIdAsc(lastId, KeysetPaging.probe(size));
+		return KeysetPaging.page(cars, size, Car::getId, carMapper::toDTO);
+	}
+
+	@GetMapping("/export")
+	public void export(HttpServletResponse response) throws IOException {
+		response.setContentType(NdjsonWriter.MEDIA_TYPE);
+		try (NdjsonWriter writer = new NdjsonWriter(objectMapper, response.getOutputStream())) {
+			carService.exportAll(car -> writer.write(carMapper.toDTO(car)));
+		}
 	}
 
 	@GetMapping(params = "model")
 	public Page<Car> findAllByModel(@RequestParam(required = false, defaultValue = "%") String model,
 			Pageable pageable) {
-		return carRepository.findAllByModelContainingIgnoreCase(model, pageable);
+		return searchService.findCarsByModel(model, pageable);
+	}
+
+	/*
+	 ****
+	 * Versão compacta da busca por modelo: só o userId no lugar do usuário aninhado (e dos
+	 * carros dele), sem @JsonIdentityInfo. A consulta projeta direto em CarDTO, lendo só a
+	 * chave estrangeira do dono, então os usuários da página não são carregados.
+	 */
+	@GetMapping(params = { "model", "view=compact" })
+	public Page<CarDTO> findAllByModelCompact(@RequestParam(required = false, defaultValue = "%") String model,
+			Pageable pageable) {
+		return searchService.findCarsByModelCompact(model, pageable);
 	}
 
 	@PostMapping
@@ -87,27 +147,89 @@ public class CarController {
 		return ResponseEntity.status(HttpStatus.CREATED).body(carSaved);
 	}
 
+	@PostMapping("/batch")
+	public ResponseEntity<List<BatchItemResultDTO>> saveAll(@RequestBody List<Car> cars) {
+		BatchItemResultDTO[] results = new BatchItemResultDTO[cars.size()];
+		List<Car> valid = new ArrayList<>();
+		List<Integer> validIndexes = new ArrayList<>();
+
+		for (int i = 0; i < cars.size(); i++) {
+			List<CustomExceptionHandler.Error> errors = new ArrayList<>();
+			validator.validate(cars.get(i))
+					.forEach(violation -> errors.add(new CustomExceptionHandler.Error(violation.getMessage(), "5")));
+			if (errors.isEmpty()) {
+				valid.add(cars.get(i));
+				validIndexes.add(i);
+			} else {
+				results[i] = new BatchItemResultDTO(i, null, BatchItemResultDTO.REJECTED, errors);
+			}
+		}
+
+		for (BatchItemResult<Car> result : carService.saveAll(valid)) {
+			int index = validIndexes.get(result.getIndex());
+			results[index] = result.isRejected()
+					? new BatchItemResultDTO(index, null, BatchItemResultDTO.REJECTED,
+							Collections.singletonList(errorOf(result.getRejection())))
+					: new BatchItemResultDTO(index, result.getItem().getId(), BatchItemResultDTO.CREATED, null);
+		}
+		return ResponseEntity.ok(Arrays.asList(results));
+	}
+
+	private CustomExceptionHandler.Error errorOf(RuntimeException rejection) {
+		if (rejection instanceof CarOwnerNotFoundException)
+			return error("validation.car-owner-not-found", "13");
+		return error("validation.car-license-plate-in-use", "3");
+	}
+
+	private CustomExceptionHandler.Error error(String messageKey, String errorCode) {
+		String customMessageUser = messageSource.getMessage(messageKey, null, LocaleContextHolder.getLocale());
+		return new CustomExceptionHandler.Error(customMessageUser, errorCode);
+	}
+
 	@PutMapping("/{id}")
-	public ResponseEntity<?> update(@PathVariable("id") UUID id, @Valid @RequestBody Car car, BindingResult result) {
+	public ResponseEntity<?> update(@PathVariable("id") UUID id, @Valid @RequestBody Car car, BindingResult result,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 		if (result.hasErrors()) {
 			return ResponseEntity.badRequest().body(new ErrorsGeneric().errorFieldsNull(result));
 		}
-		return ResponseEntity.ok(carService.update(id, car));
+		Car updated = carService.update(id, car, VersionETag.parseIfMatch(ifMatch));
+		return ResponseEntity.ok().eTag(VersionETag.of(updated.getVersion())).body(updated);
+	}
+
+	@PatchMapping(value = "/{id}", consumes = { MergePatcher.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE })
+	public ResponseEntity<Car> patch(@PathVariable("id") UUID id, @RequestBody JsonNode patch,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		Car patched = carService.patch(id, patch, VersionETag.parseIfMatch(ifMatch));
+		return ResponseEntity.ok().eTag(VersionETag.of(patched.getVersion())).body(patched);
 	}
 
 	@DeleteMapping("/{id}")
 	@ResponseStatus(HttpStatus.NO_CONTENT)
 	public void delete(@PathVariable("id") UUID id) {
-		carRepository.deleteById(id);
+		carService.delete(id);
 	}
 
+	/*
+	 ****
+	 * Resposta (Car com o dono e os carros do dono) servida do RepresentationCache.
+	 */
 	@GetMapping("/{id}")
-	public ResponseEntity<Car> findById(@PathVariable("id") UUID id) {
-		Optional<Car> car = carRepository.findById(id);
-		if (car.isPresent()) {
-			return ResponseEntity.ok().body(car.get());
-		} else
-			return ResponseEntity.notFound().build();
+	public ResponseEntity<byte[]> findById(@PathVariable("id") UUID id,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+		return representationCache.get(RepresentationCache.key(RepresentationCache.CAR, id), accept,
+				CacheControl.noCache(),
+				() -> carRepository.findById(id), Car::getVersion, car -> car, CarController::embedded);
+	}
+
+	private static List<RepresentationCache.Key> embedded(Car car) {
+		List<RepresentationCache.Key> keys = new ArrayList<>();
+		User owner = car.getUser();
+		if (owner != null) {
+			keys.add(RepresentationCache.key(RepresentationCache.USER, owner.getId()));
+			if (Hibernate.isInitialized(owner.getCars()))
+				owner.getCars().forEach(other -> keys.add(RepresentationCache.key(RepresentationCache.CAR, other.getId())));
+		}
+		return keys;
 	}
 
 	// ExceptionHandlers
@@ -0,0 +1,84 @@
+package com.pitang.controller;
+
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.pitang.config.ReactiveReadConfig;
+import com.pitang.config.property.DesafioApiProperty;
+import com.pitang.controller.support.KeysetFlux;
+import com.pitang.controller.support.KeysetPaging;
+import com.pitang.controller.support.VersionETag;
+import com.pitang.mapper.CarMapper;
+import com.pitang.model.Car;
+import com.pitang.model.dto.CarDTO;
+import com.pitang.repository.CarRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/*
+ ****
+ * Leitura de carros sem prender thread do Tomcat por requisição. Com Accept
+ * application/stream+json a listagem é enviada elemento a elemento, no ritmo do cliente;
+ * com application/json os elementos são reunidos num array, de no máximo
+ * desafio-pitang.reactive.max-array-size elementos.
+ */
+@RestController
+@RequestMapping("/reactive/cars")
+public class ReactiveCarController {
+
+	private final CarRepository carRepository;
+	private final CarMapper carMapper;
+	private final Scheduler scheduler;
+	private final int pageSize;
+	private final int maxArraySize;
+
+	@Autowired
+	public ReactiveCarController(CarRepository carRepository, CarMapper carMapper,
+			@Qualifier(ReactiveReadConfig.READ_SCHEDULER) Scheduler scheduler, DesafioApiProperty property) {
+		this.carRepository = carRepository;
+		this.carMapper = carMapper;
+		this.scheduler = scheduler;
+		this.pageSize = property.getReactive().getPageSize();
+		this.maxArraySize = property.getReactive().getMaxArraySize();
+	}
+
+	@GetMapping(produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+	public Flux<CarDTO> stream(@RequestParam(required = false) String after,
+			@RequestParam(defaultValue = "0") long limit) {
+		return list(after, limit);
+	}
+
+	@GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+	public Flux<CarDTO> getAll(@RequestParam(required = false) String after,
+			@RequestParam(defaultValue = "0") long limit) {
+		return list(after, limit > 0 ? Math.min(limit, maxArraySize) : maxArraySize);
+	}
+
+	@GetMapping("/{id}")
+	public Mono<ResponseEntity<CarDTO>> findById(@PathVariable("id") UUID id) {
+		return Mono.fromCallable(() -> carRepository.findById(id)
+				.map(car -> ResponseEntity.ok().eTag(VersionETag.of(car.getVersion())).body(carMapper.toDTO(car)))
+				.orElseGet(() -> ResponseEntity.notFound().build()))
+				.subscribeOn(scheduler);
+	}
+
+	private Flux<CarDTO> list(String after, long limit) {
+		Flux<CarDTO> cars = KeysetFlux.of(KeysetPaging.decode(after), pageSize,
+				(lastId, page) -> lastId == null
+						? carRepository.findAllByOrderByIdAsc(page)
+						: carRepository.findByIdGreaterThanOrderByIdAsc(lastId, page),
+				Car::getId, carMapper::toDTO);
+		return (limit > 0 ? cars.take(limit) : cars).subscribeOn(scheduler);
+	}
+}
@@ -0,0 +1,86 @@
+package com.pitang.controller;
+
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.pitang.config.ReactiveReadConfig;
+import com.pitang.config.property.DesafioApiProperty;
+import com.pitang.controller.support.KeysetFlux;
+import com.pitang.controller.support.KeysetPaging;
+import com.pitang.controller.support.VersionETag;
+import com.pitang.mapper.UserMapper;
+import com.pitang.model.User;
+import com.pitang.model.dto.UserDTO;
+import com.pitang.model.dto.UserDetailDTO;
+import com.pitang.repository.UserRepository;
+import com.pitang.service.UserService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/*
+ ****
+ * Leitura de usuários sem prender thread do Tomcat por requisição (ver ReactiveCarController).
+ */
+@RestController
+@RequestMapping("/reactive/users")
+public class ReactiveUserController {
+
+	private final UserRepository userRepository;
+	private final UserService userService;
+	private final UserMapper userMapper;
+	private final Scheduler scheduler;
+	private final int pageSize;
+	private final int maxArraySize;
+
+	@Autowired
+	public ReactiveUserController(UserRepository userRepository, UserService userService, UserMapper userMapper,
+			@Qualifier(ReactiveReadConfig.READ_SCHEDULER) Scheduler scheduler, DesafioApiProperty property) {
+		this.userRepository = userRepository;
+		this.userService = userService;
+		this.userMapper = userMapper;
+		this.scheduler = scheduler;
+		this.pageSize = property.getReactive().getPageSize();
+		this.maxArraySize = property.getReactive().getMaxArraySize();
+	}
+
+	@GetMapping(produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+	public Flux<UserDTO> stream(@RequestParam(required = false) String after,
+			@RequestParam(defaultValue = "0") long limit) {
+		return list(after, limit);
+	}
+
+	@GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+	public Flux<UserDTO> getAll(@RequestParam(required = false) String after,
+			@RequestParam(defaultValue = "0") long limit) {
+		return list(after, limit > 0 ? Math.min(limit, maxArraySize) : maxArraySize);
+	}
+
+	@GetMapping("/{id}")
+	public Mono<ResponseEntity<UserDetailDTO>> findById(@PathVariable("id") UUID id) {
+		return Mono.fromCallable(() -> userService.findWithCars(id)
+				.map(user -> ResponseEntity.ok().eTag(VersionETag.of(user.getVersion()))
+						.body(userMapper.toDetailDTO(user)))
+				.orElseGet(() -> ResponseEntity.notFound().build()))
+				.subscribeOn(scheduler);
+	}
+
+	private Flux<UserDTO> list(String after, long limit) {
+		Flux<UserDTO> users = KeysetFlux.of(KeysetPaging.decode(after), pageSize,
+				(lastId, page) -> lastId == null
+						? userRepository.findAllByOrderByIdAsc(page)
+						: userRepository.findByIdGreaterThanOrderByIdAsc(lastId, page),
+				User::getId, userMapper::toDTO);
+		return (limit > 0 ? users.take(limit) : users).subscribeOn(scheduler);
+	}
+}
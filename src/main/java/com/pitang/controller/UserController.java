@@ -1,30 +1,51 @@
 package com.pitang.controller;
 
 import com.pitang.controller.errors.ErrorsGeneric;
+import com.pitang.controller.support.KeysetPaging;
+import com.pitang.controller.support.NdjsonWriter;
+import com.pitang.controller.support.RepresentationCache;
+import com.pitang.controller.support.VersionETag;
 import com.pitang.event.RecursoCriadoEvent;
 import com.pitang.exceptionhandler.CustomExceptionHandler;
+import com.pitang.mapper.UserMapper;
+import com.pitang.model.Car;
 import com.pitang.model.User;
+import com.pitang.model.dto.BatchItemResultDTO;
+import com.pitang.model.dto.CursorPageDTO;
 import com.pitang.model.dto.UserDTO;
+import com.pitang.model.dto.UserDetailDTO;
 import com.pitang.repository.UserRepository;
+import com.pitang.search.SearchService;
+import com.pitang.service.BatchItemResult;
+import com.pitang.service.CarService;
 import com.pitang.service.UserService;
+import com.pitang.service.support.MergePatcher;
 import com.pitang.service.exception.CarWithLicensePlateDuplicated;
 import com.pitang.service.exception.EmailDuplicateException;
 import com.pitang.service.exception.LoginDuplicateException;
-import org.modelmapper.ModelMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletResponse;
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
+import javax.validation.Validator;
+import java.io.IOException;
 import java.util.*;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/users")
@@ -32,30 +53,59 @@ public class UserController extends ErrorsGeneric {
 
 	private final UserRepository userRepository;
 	private final UserService userService;
+	private final CarService carService;
 	private final MessageSource messageSource;
 	private final ApplicationEventPublisher publisher;
-	private final ModelMapper userMapper;
+	private final UserMapper userMapper;
+	private final Validator validator;
+	private final ObjectMapper objectMapper;
+	private final SearchService searchService;
+	private final RepresentationCache representationCache;
 
 	@Autowired
-	public UserController(UserRepository userRepository, UserService userService, MessageSource messageSource,
-			ApplicationEventPublisher publisher, ModelMapper userMapper) {
+	public UserController(UserRepository userRepository, UserService userService, CarService carService,
+			MessageSource messageSource, ApplicationEventPublisher publisher, UserMapper userMapper,
+			Validator validator, ObjectMapper objectMapper, SearchService searchService,
+			RepresentationCache representationCache) {
 		this.userRepository = userRepository;
 		this.userService = userService;
+		this.carService = carService;
 		this.messageSource = messageSource;
 		this.publisher = publisher;
 		this.userMapper = userMapper;
+		this.validator = validator;
+		this.objectMapper = objectMapper;
+		this.searchService = searchService;
+		this.representationCache = representationCache;
 	}
 
 	@GetMapping
 	public Page<UserDTO> getAll(Pageable pageable) {
-		return userRepository.findAll(pageable).map(user -> userMapper.map(user, UserDTO.class));
+		return userRepository.findAll(pageable).map(userMapper::toDTO);
+	}
+
+	@GetMapping(params = "after")
+	public CursorPageDTO<UserDTO> getAllAfter(@RequestParam String after,
+			@RequestParam(defaultValue = "20") int size) {
+		UUID lastId = KeysetPaging.decode(after);
+		List<User> users = lastId == null
+				? userRepository.findAllByOrderByIdAsc(KeysetPaging.probe(size))
+				: userRepository.findByIdGreaterThanOrderByIdAsc(lastId, KeysetPaging.probe(size));
+		return KeysetPaging.page(users, size, User::getId, userMapper::toDTO);
+	}
+
+	@GetMapping("/export")
+	public void export(HttpServletResponse response) throws IOException {
+		response.setContentType(NdjsonWriter.MEDIA_TYPE);
+		try (NdjsonWriter writer = new NdjsonWriter(objectMapper, response.getOutputStream())) {
+			userService.exportAll(user -> writer.write(userMapper.toDTO(user)));
+		}
 	}
 
 	@GetMapping(params = "firstName")
 	public Page<UserDTO> findAllByModel(@RequestParam(required = false, defaultValue = "%") String firstName,
 			Pageable pageable) {
-		return userRepository.findAllByFirstNameContainingIgnoreCase(firstName, pageable)
-				.map(user -> userMapper.map(user, UserDTO.class));
+		return searchService.findUsersByFirstName(firstName, pageable).map(userMapper::toDTO);
 	}
 
 	@PostMapping
@@ -73,33 +123,113 @@ public class UserController extends ErrorsGeneric {
 		return ResponseEntity.status(HttpStatus.CREATED).body(userSaved);
 	}
 
+	@PostMapping("/batch")
+	public ResponseEntity<List<BatchItemResultDTO>> saveAll(@RequestBody List<User> users) {
+		BatchItemResultDTO[] results = new BatchItemResultDTO[users.size()];
+		List<User> valid = new ArrayList<>();
+		List<Integer> validIndexes = new ArrayList<>();
+
+		for (int i = 0; i < users.size(); i++) {
+			List<CustomExceptionHandler.Error> errors = validate(users.get(i));
+			if (errors.isEmpty()) {
+				valid.add(users.get(i));
+				validIndexes.add(i);
+			} else {
+				results[i] = new BatchItemResultDTO(i, null, BatchItemResultDTO.REJECTED, errors);
+			}
+		}
+
+		for (BatchItemResult<User> result : userService.saveAll(valid)) {
+			int index = validIndexes.get(result.getIndex());
+			results[index] = result.isRejected()
+					? new BatchItemResultDTO(index, null, BatchItemResultDTO.REJECTED,
+							Collections.singletonList(errorOf(result.getRejection())))
+					: new BatchItemResultDTO(index, result.getItem().getId(), BatchItemResultDTO.CREATED, null);
+		}
+		return ResponseEntity.ok(Arrays.asList(results));
+	}
+
+	private List<CustomExceptionHandler.Error> validate(User user) {
+		Set<ConstraintViolation<Object>> violations = new LinkedHashSet<>(validator.validate((Object) user));
+		if (user.getCars() != null) {
+			for (Car car : user.getCars()) {
+				violations.addAll(validator.validate((Object) car));
+			}
+		}
+		List<CustomExceptionHandler.Error> errors = new ArrayList<>();
+		violations.forEach(violation -> errors.add(new CustomExceptionHandler.Error(violation.getMessage(), "5")));
+		return errors;
+	}
+
 	@PutMapping("/{id}")
-	public ResponseEntity<?> update(@PathVariable("id") UUID id, @Valid @RequestBody User user, BindingResult result) {
+	public ResponseEntity<?> update(@PathVariable("id") UUID id, @Valid @RequestBody User user, BindingResult result,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 		if (result.hasErrors()) {
 			return ResponseEntity.badRequest().body(new ErrorsGeneric().errorFieldsNull(result));
 		}
-		return ResponseEntity.ok(userService.update(id, user));
+		User updated = userService.update(id, user, VersionETag.parseIfMatch(ifMatch));
+		return ResponseEntity.ok().eTag(VersionETag.of(updated.getVersion())).body(updated);
 	}
 	
+	@PatchMapping(value = "/{id}", consumes = { MergePatcher.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE })
+	public ResponseEntity<User> patch(@PathVariable("id") UUID id, @RequestBody JsonNode patch,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		User patched = userService.patch(id, patch, VersionETag.parseIfMatch(ifMatch));
+		return ResponseEntity.ok().eTag(VersionETag.of(patched.getVersion())).body(patched);
+	}
+
 	@PutMapping("/{userId}/disassociate-car/{carId}")
 	@ResponseStatus(HttpStatus.OK)
 	public void disassociateCar(@PathVariable("userId") UUID userId, @PathVariable("carId") UUID carId) {
 		userService.disassociateCar(userId, carId);
 	}
 
+	/*
+	 ****
+	 * Transferência de frota: os carros da lista passam a ser do usuário. Devolve os ids alterados.
+	 */
+	@PutMapping("/{userId}/cars")
+	public List<UUID> reassignCars(@PathVariable("userId") UUID userId, @RequestBody List<UUID> carIds) {
+		return carService.reassign(userId, carIds);
+	}
+
+	@PutMapping("/{userId}/disassociate-cars")
+	public List<UUID> disassociateCars(@PathVariable("userId") UUID userId, @RequestBody List<UUID> carIds) {
+		return carService.detach(userId, carIds);
+	}
+
 	@DeleteMapping("/{id}")
 	@ResponseStatus(HttpStatus.NO_CONTENT)
 	public void delete(@PathVariable("id") UUID id) {
 		userService.delete(id);
 	}
 
+	/*
+	 ****
+	 * Resposta (UserDetailDTO) servida do RepresentationCache; o ETag cobre também os carros.
+	 */
 	@GetMapping("/{id}")
-	public ResponseEntity<User> findById(@PathVariable("id") UUID id) {
-		Optional<User> user = userRepository.findById(id);
-		if (user.isPresent())
-			return ResponseEntity.ok().body(user.get());
-		else
-			return ResponseEntity.notFound().build();
+	public ResponseEntity<byte[]> findById(@PathVariable("id") UUID id,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+		return representationCache.get(RepresentationCache.key(RepresentationCache.USER, id), accept,
+				CacheControl.noCache().cachePrivate(),
+				() -> userService.findWithCars(id), User::getVersion, userMapper::toDetailDTO,
+				user -> user.getCars().stream()
+						.map(car -> RepresentationCache.key(RepresentationCache.CAR, car.getId()))
+						.collect(Collectors.toList()));
+	}
+
+	private CustomExceptionHandler.Error errorOf(RuntimeException rejection) {
+		if (rejection instanceof EmailDuplicateException)
+			return error("validation.user-email-duplicate", "2");
+		if (rejection instanceof LoginDuplicateException)
+			return error("validation.user-login-duplicate", "3");
+		return error("validation.car-license-plate-in-use", "3");
+	}
+
+	private CustomExceptionHandler.Error error(String messageKey, String errorCode) {
+		String customMessageUser = messageSource.getMessage(messageKey, null, LocaleContextHolder.getLocale());
+		return new CustomExceptionHandler.Error(customMessageUser, errorCode);
 	}
 
 	// ExceptionHandlers
@@ -0,0 +1,56 @@
+package com.pitang.controller.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ ****
+ * Formatos aceitos na negociação de conteúdo, cada um com seu ObjectMapper (mesma
+ * configuração do Jackson da aplicação). JSON continua sendo o padrão; CBOR e Smile são
+ * para chamadas entre serviços, onde o parse do JSON pesa na CPU.
+ */
+public class ContentFormats {
+
+    public static final MediaType CBOR = MediaType.valueOf("application/cbor");
+    public static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+
+    private final Map<MediaType, ObjectMapper> mappers = new LinkedHashMap<>();
+
+    public ContentFormats(ObjectMapper json, ObjectMapper cbor, ObjectMapper smile) {
+        mappers.put(MediaType.APPLICATION_JSON_UTF8, json);
+        mappers.put(CBOR, cbor);
+        mappers.put(SMILE, smile);
+    }
+
+    public Set<MediaType> types() {
+        return Collections.unmodifiableSet(mappers.keySet());
+    }
+
+    public ObjectMapper mapper(MediaType type) {
+        return mappers.get(type);
+    }
+
+    /*
+     * Primeiro formato suportado pelo Accept, na ordem de preferência do cliente; sem Accept,
+     * ou com um Accept que não bate com nenhum formato, JSON.
+     */
+    public MediaType negotiate(String accept) {
+        if (accept == null || accept.trim().isEmpty())
+            return MediaType.APPLICATION_JSON_UTF8;
+        List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+        MediaType.sortBySpecificityAndQuality(accepted);
+        for (MediaType type : accepted) {
+            for (MediaType supported : mappers.keySet()) {
+                if (type.isCompatibleWith(supported))
+                    return supported;
+            }
+        }
+        return MediaType.APPLICATION_JSON_UTF8;
+    }
+}
@@ -0,0 +1,54 @@
+package com.pitang.controller.support;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/*
+ ****
+ * Flux que percorre uma tabela em páginas por chave (ver KeysetPaging). Uma página só é
+ * consultada quando o assinante pede mais elementos, e cada consulta é uma transação curta,
+ * então um cliente lento não segura conexão nem carrega a tabela inteira em memória.
+ */
+public final class KeysetFlux {
+
+    private KeysetFlux() {}
+
+    /*
+     * fetch recebe o último id já emitido (null na primeira página) e a página desejada.
+     * O mapper roda na mesma thread da consulta, antes das entidades saírem do serviço.
+     */
+    public static <E, D> Flux<D> of(UUID after, int pageSize, BiFunction<UUID, Pageable, List<E>> fetch,
+                                    Function<E, UUID> id, Function<E, D> mapper) {
+        Pageable page = PageRequest.of(0, pageSize);
+        return Flux.<List<D>, Cursor>generate(() -> new Cursor(after), (cursor, sink) -> {
+            List<E> rows = cursor.done ? new ArrayList<>() : fetch.apply(cursor.lastId, page);
+            if (rows.isEmpty()) {
+                sink.complete();
+                return cursor;
+            }
+            cursor.lastId = id.apply(rows.get(rows.size() - 1));
+            cursor.done = rows.size() < pageSize;
+
+            List<D> content = new ArrayList<>(rows.size());
+            rows.forEach(row -> content.add(mapper.apply(row)));
+            sink.next(content);
+            return cursor;
+        }).flatMapIterable(content -> content, 1);
+    }
+
+    private static final class Cursor {
+        private UUID lastId;
+        private boolean done;
+
+        private Cursor(UUID lastId) {
+            this.lastId = lastId;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.pitang.controller.support;
+
+import com.pitang.model.dto.CursorPageDTO;
+import com.pitang.service.exception.InvalidCursorException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/*
+ ****
+ * Paginação por chave (seek): a próxima página começa depois do último id devolvido,
+ * sem OFFSET e sem count(*). O cursor é o id codificado em Base64 (URL safe).
+ */
+public final class KeysetPaging {
+
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 2000;
+
+    private KeysetPaging() {}
+
+    /*
+     * Busca uma linha a mais que o tamanho pedido para saber se existe próxima página.
+     */
+    public static Pageable probe(int size) {
+        return PageRequest.of(0, normalize(size) + 1);
+    }
+
+    public static UUID decode(String cursor) {
+        if (cursor == null || cursor.isEmpty())
+            return null;
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(cursor));
+            if (buffer.remaining() != 16)
+                throw new InvalidCursorException();
+            return new UUID(buffer.getLong(), buffer.getLong());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException();
+        }
+    }
+
+    public static String encode(UUID id) {
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    public static <E, D> CursorPageDTO<D> page(List<E> rows, int size, Function<E, UUID> id, Function<E, D> mapper) {
+        int pageSize = normalize(size);
+        boolean hasNext = rows.size() > pageSize;
+        List<E> pageRows = hasNext ? rows.subList(0, pageSize) : rows;
+
+        List<D> content = new ArrayList<>(pageRows.size());
+        pageRows.forEach(row -> content.add(mapper.apply(row)));
+
+        String nextCursor = hasNext ? encode(id.apply(pageRows.get(pageRows.size() - 1))) : null;
+        return new CursorPageDTO<>(content, content.size(), nextCursor);
+    }
+
+    private static int normalize(int size) {
+        if (size < 1)
+            return DEFAULT_SIZE;
+        return Math.min(size, MAX_SIZE);
+    }
+}
@@ -0,0 +1,217 @@
+package com.pitang.controller.support;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.pitang.config.property.DesafioApiProperty;
+import com.pitang.event.EntityChangedEvent;
+import com.pitang.model.Car;
+import com.pitang.model.User;
+import com.pitang.service.support.UserCarsCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/*
+ ****
+ * Cache das respostas já serializadas dos GET por id (uma por formato negociado, ver
+ * ContentFormats), com o ETag correspondente. Um acerto não consulta o banco nem serializa;
+ * com If-None-Match igual ao ETag o Spring responde 304. Depois do commit de cada alteração
+ * (EntityChangedEvent) saem do cache a entidade alterada, o dono do carro e toda
+ * representação que embute alguma delas.
+ */
+@Component
+public class RepresentationCache {
+
+    public static final String CAR = Car.class.getSimpleName();
+    public static final String USER = User.class.getSimpleName();
+
+    private final ContentFormats formats;
+    private final Cache<Variant, Representation> cache;
+
+    /*
+     * Entidade -> representações que a embutem (ex.: carro -> detalhe do dono).
+     */
+    private final ConcurrentMap<Key, Set<Variant>> dependents = new ConcurrentHashMap<>();
+
+    /*
+     * Conta as invalidações: uma resposta montada enquanto houve invalidação não é guardada,
+     * porque pode ter lido o estado anterior ao commit.
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Autowired
+    public RepresentationCache(ContentFormats formats, DesafioApiProperty property, MeterRegistry registry) {
+        this.formats = formats;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(property.getHttpCache().getMaxEntries())
+                .expireAfterWrite(property.getHttpCache().getTtlSeconds(), TimeUnit.SECONDS)
+                .removalListener(this::forgetDependencies)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "http-representations");
+    }
+
+    public static Key key(String type, UUID id) {
+        return new Key(type, id);
+    }
+
+    /*
+     * O ETag é a versão da entidade mais o hash do JSON (ver VersionETag); embedded são as
+     * outras entidades que aparecem dentro da representação.
+     */
+    public <T> ResponseEntity<byte[]> get(Key key, String accept, CacheControl cacheControl,
+                                          Supplier<Optional<T>> loader, Function<T, Long> version,
+                                          Function<T, ?> view, Function<T, Collection<Key>> embedded) {
+        Variant variant = new Variant(key, formats.negotiate(accept));
+        Representation representation = cache.getIfPresent(variant);
+        if (representation == null) {
+            long stamp = invalidations.get();
+            Optional<T> entity = loader.get();
+            if (!entity.isPresent())
+                return ResponseEntity.notFound().build();
+
+            byte[] body = serialize(variant.format, view.apply(entity.get()));
+            representation = new Representation(VersionETag.of(version.apply(entity.get()), body), body,
+                    embedded.apply(entity.get()));
+            // Registra as dependências depois do put: forgetDependencies só descarta uma
+            // dependência se a entrada não estiver mais no cache
+            cache.put(variant, representation);
+            for (Key dependency : representation.embedded)
+                dependents.computeIfAbsent(dependency, k -> ConcurrentHashMap.newKeySet()).add(variant);
+            if (stamp != invalidations.get())
+                cache.invalidate(variant);
+        }
+        return ResponseEntity.ok()
+                .contentType(variant.format)
+                .varyBy(HttpHeaders.ACCEPT)
+                .eTag(representation.etag)
+                .cacheControl(cacheControl)
+                .body(representation.body);
+    }
+
+    public void evict(Key key) {
+        invalidations.incrementAndGet();
+        for (MediaType format : formats.types())
+            cache.invalidate(new Variant(key, format));
+        Set<Variant> embedding = dependents.remove(key);
+        if (embedding != null)
+            cache.invalidateAll(embedding);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void on(EntityChangedEvent event) {
+        evict(key(event.getAggregateType(), event.getAggregateId()));
+        if (event.getEntity() instanceof Car) {
+            UUID owner = UserCarsCache.ownerOf((Car) event.getEntity());
+            if (owner != null)
+                evict(key(USER, owner));
+        }
+    }
+
+    private void forgetDependencies(Variant variant, Representation representation, RemovalCause cause) {
+        if (variant == null || representation == null)
+            return;
+        for (Key dependency : representation.embedded) {
+            dependents.computeIfPresent(dependency, (k, variants) -> {
+                if (!cache.asMap().containsKey(variant))
+                    variants.remove(variant);
+                return variants.isEmpty() ? null : variants;
+            });
+        }
+    }
+
+    private byte[] serialize(MediaType format, Object view) {
+        try {
+            return formats.mapper(format).writeValueAsBytes(view);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Representation {
+        private final String etag;
+        private final byte[] body;
+        private final Collection<Key> embedded;
+
+        private Representation(String etag, byte[] body, Collection<Key> embedded) {
+            this.etag = etag;
+            this.body = body;
+            this.embedded = embedded;
+        }
+    }
+
+    private static final class Variant {
+        private final Key key;
+        private final MediaType format;
+
+        private Variant(Key key, MediaType format) {
+            this.key = key;
+            this.format = format;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Variant))
+                return false;
+            Variant variant = (Variant) o;
+            return key.equals(variant.key) && format.equals(variant.format);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(key, format);
+        }
+    }
+
+    public static final class Key {
+        private final String type;
+        private final UUID id;
+
+        private Key(String type, UUID id) {
+            this.type = type;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            Key key = (Key) o;
+            return type.equals(key.type) && id.equals(key.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, id);
+        }
+
+        @Override
+        public String toString() {
+            return type + ":" + id;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.pitang.controller.support;
+
+import org.springframework.util.DigestUtils;
+
+/*
+ ****
+ * ETag derivado do @Version da entidade: "3". O mesmo valor é aceito de volta no
+ * If-Match do PUT. Representações que agregam outras entidades (usuário com seus carros)
+ * levam um sufixo com o hash do conteúdo, "3.9e107d9d..."; o sufixo é ignorado no If-Match.
+ */
+public final class VersionETag {
+
+    /*
+     * Versão que nunca existe: If-Match malformado sempre resulta em 412.
+     */
+    private static final long NO_MATCH = -1L;
+
+    private VersionETag() {}
+
+    public static String of(Long version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+    public static String of(Long version, byte[] content) {
+        return version == null ? null : "\"" + version + "." + DigestUtils.md5DigestAsHex(content) + "\"";
+    }
+
+    /*
+     * Versão esperada a partir do If-Match, ou null quando o header não foi enviado ou é "*".
+     */
+    public static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().isEmpty() || ifMatch.trim().equals("*"))
+            return null;
+
+        // If-Match usa comparação forte: ETags fracos (W/) nunca batem
+        String tag = ifMatch.trim();
+        if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\""))
+            return NO_MATCH;
+        String value = tag.substring(1, tag.length() - 1);
+        int suffix = value.indexOf('.');
+        try {
+            return Long.valueOf(suffix < 0 ? value : value.substring(0, suffix));
+        } catch (NumberFormatException e) {
+            return NO_MATCH;
+        }
+    }
+}
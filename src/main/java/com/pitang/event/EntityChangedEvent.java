@@ -0,0 +1,60 @@
+package com.pitang.event;
+
+import com.pitang.model.Car;
+import com.pitang.model.User;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.UUID;
+
+/*
+ ****
+ * Evento de domínio publicado pelos serviços a cada alteração de User ou Car. A
+ * entidade só deve ser lida por listeners que rodam dentro da transação; listeners
+ * assíncronos devem usar apenas o tipo e o id.
+ */
+public class EntityChangedEvent extends ApplicationEvent {
+
+    public enum Change { CREATED, UPDATED, DELETED }
+
+    private final String aggregateType;
+    private final UUID aggregateId;
+    private final Change change;
+    private final transient Object entity;
+
+    public EntityChangedEvent(Object source, String aggregateType, UUID aggregateId, Change change, Object entity) {
+        super(source);
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.change = change;
+        this.entity = entity;
+    }
+
+    public static EntityChangedEvent of(Object source, User user, Change change) {
+        return new EntityChangedEvent(source, User.class.getSimpleName(), user.getId(), change, user);
+    }
+
+    public static EntityChangedEvent of(Object source, Car car, Change change) {
+        return new EntityChangedEvent(source, Car.class.getSimpleName(), car.getId(), change, car);
+    }
+
+    public String getAggregateType() {
+        return aggregateType;
+    }
+
+    public UUID getAggregateId() {
+        return aggregateId;
+    }
+
+    public Change getChange() {
+        return change;
+    }
+
+    public Object getEntity() {
+        return entity;
+    }
+
+    @Override
+    public String toString() {
+        return aggregateType + " " + aggregateId + " " + change;
+    }
+}
@@ -0,0 +1,29 @@
+package com.pitang.event.listener;
+
+import com.pitang.config.DomainEventsConfig;
+import com.pitang.event.EntityChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+
+/*
+ ****
+ * Registro de auditoria das alterações. Roda depois do commit, fora da thread da
+ * requisição, no executor de eventos de domínio.
+ */
+@Component
+public class AuditoriaListener {
+
+    private static final Logger log = LoggerFactory.getLogger("audit");
+
+    @Async(DomainEventsConfig.EXECUTOR)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        log.info("{} {} {} at {}", event.getAggregateType(), event.getAggregateId(), event.getChange(),
+                Instant.ofEpochMilli(event.getTimestamp()));
+    }
+}
@@ -9,6 +9,11 @@ import javax.servlet.http.HttpServletResponse;
 import java.net.URI;
 import java.util.UUID;
 
+/*
+ ****
+ * Continua síncrono: o header Location precisa estar na resposta e montá-lo é barato.
+ * Demais efeitos colaterais ficam em listeners assíncronos de EntityChangedEvent.
+ */
 @Component
 public class RecursoCriadoListener implements ApplicationListener<RecursoCriadoEvent> {
 
@@ -1,9 +1,13 @@
 package com.pitang.exceptionhandler;
 
+import com.pitang.service.exception.InvalidCursorException;
+import com.pitang.service.exception.InvalidPatchException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -16,6 +20,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
+import javax.validation.ConstraintViolationException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -65,7 +70,60 @@ public class CustomExceptionHandler extends ResponseEntityExceptionHandler {
         return handleExceptionInternal(tx, errors, new HttpHeaders(), HttpStatus.NOT_FOUND, request);
     }
 
+    /*
+     ****
+     * Violação de constraint unique que escapou da verificação em memória, por exemplo
+     * um cadastro concorrente feito por outra instância da aplicação.
+     */
+    @ExceptionHandler({DataIntegrityViolationException.class})
+    public ResponseEntity<Object> handleDataIntegrityViolationException(DataIntegrityViolationException ex,
+                                                                        WebRequest request) {
+        String customMessageUser = messageSource
+                .getMessage("resource.conflict", null, LocaleContextHolder.getLocale());
+        List<Error> errors = Collections.singletonList(new Error(customMessageUser, "7"));
+        return handleExceptionInternal(ex, errors, new HttpHeaders(), HttpStatus.CONFLICT, request);
+    }
+
+    /*
+     ****
+     * If-Match com versão antiga ou atualização concorrente detectada pelo @Version.
+     */
+    @ExceptionHandler({OptimisticLockingFailureException.class})
+    public ResponseEntity<Object> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex,
+                                                                          WebRequest request) {
+        String customMessageUser = messageSource
+                .getMessage("resource.modified", null, LocaleContextHolder.getLocale());
+        List<Error> errors = Collections.singletonList(new Error(customMessageUser, "8"));
+        return handleExceptionInternal(ex, errors, new HttpHeaders(), HttpStatus.PRECONDITION_FAILED, request);
+    }
 
+    @ExceptionHandler({InvalidPatchException.class})
+    public ResponseEntity<Object> handleInvalidPatchException(InvalidPatchException ex, WebRequest request) {
+        String customMessageUser = messageSource
+                .getMessage("handleInvalidFields", null, LocaleContextHolder.getLocale());
+        List<Error> errors = Collections.singletonList(new Error(customMessageUser, "4"));
+        return handleExceptionInternal(ex, errors, new HttpHeaders(), HttpStatus.BAD_REQUEST, request);
+    }
+
+    /*
+     ****
+     * Validação feita fora do binding do Spring MVC, como o resultado de um PATCH.
+     */
+    @ExceptionHandler({ConstraintViolationException.class})
+    public ResponseEntity<Object> handleConstraintViolationException(ConstraintViolationException ex,
+                                                                     WebRequest request) {
+        List<Error> errors = new ArrayList<>();
+        ex.getConstraintViolations().forEach(violation -> errors.add(new Error(violation.getMessage(), "5")));
+        return handleExceptionInternal(ex, errors, new HttpHeaders(), HttpStatus.BAD_REQUEST, request);
+    }
+
+    @ExceptionHandler({InvalidCursorException.class})
+    public ResponseEntity<Object> handleInvalidCursorException(InvalidCursorException ex, WebRequest request) {
+        String customMessageUser = messageSource
+                .getMessage("pagination.invalid-cursor", null, LocaleContextHolder.getLocale());
+        List<Error> errors = Collections.singletonList(new Error(customMessageUser, "6"));
+        return handleExceptionInternal(ex, errors, new HttpHeaders(), HttpStatus.BAD_REQUEST, request);
+    }
 
     private List<Error> createErrorList(BindingResult result) {
         List<Error> errors = new ArrayList<>();
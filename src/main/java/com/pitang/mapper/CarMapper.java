@@ -0,0 +1,27 @@
+package com.pitang.mapper;
+
+import com.pitang.model.Car;
+import com.pitang.model.dto.CarDTO;
+import org.springframework.stereotype.Component;
+
+/*
+ ****
+ * Conversão Car -> CarDTO sem reflexão. Usado nas listagens, onde o ModelMapper
+ * pesava a cada linha da página.
+ */
+@Component
+public class CarMapper {
+
+    public CarDTO toDTO(Car car) {
+        CarDTO dto = new CarDTO();
+        dto.setId(car.getId());
+        dto.setYear(car.getYear());
+        dto.setLicensePlate(car.getLicensePlate());
+        dto.setModel(car.getModel());
+        dto.setColor(car.getColor());
+        if (car.getUser() != null) {
+            dto.setUserId(car.getUser().getId());
+        }
+        return dto;
+    }
+}
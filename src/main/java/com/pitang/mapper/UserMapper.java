@@ -0,0 +1,54 @@
+package com.pitang.mapper;
+
+import com.pitang.model.Car;
+import com.pitang.model.User;
+import com.pitang.model.dto.CarDTO;
+import com.pitang.model.dto.UserDTO;
+import com.pitang.model.dto.UserDetailDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ ****
+ * Conversão User -> UserDTO / UserDetailDTO sem reflexão.
+ */
+@Component
+public class UserMapper {
+
+    private final CarMapper carMapper;
+
+    @Autowired
+    public UserMapper(CarMapper carMapper) {
+        this.carMapper = carMapper;
+    }
+
+    public UserDTO toDTO(User user) {
+        return copy(user, new UserDTO());
+    }
+
+    public UserDetailDTO toDetailDTO(User user) {
+        UserDetailDTO dto = copy(user, new UserDetailDTO());
+        if (user.getCars() != null) {
+            List<CarDTO> cars = new ArrayList<>(user.getCars().size());
+            for (Car car : user.getCars()) {
+                cars.add(carMapper.toDTO(car));
+            }
+            dto.setCars(cars);
+        }
+        return dto;
+    }
+
+    private <D extends UserDTO> D copy(User user, D dto) {
+        dto.setId(user.getId());
+        dto.setFirstName(user.getFirstName());
+        dto.setLastName(user.getLastName());
+        dto.setEmail(user.getEmail());
+        dto.setBirthday(user.getBirthday());
+        dto.setLogin(user.getLogin());
+        dto.setPhone(user.getPhone());
+        return dto;
+    }
+}
@@ -0,0 +1,100 @@
+package com.pitang.model;
+
+import javax.persistence.*;
+import java.util.Date;
+import java.util.UUID;
+
+/*
+ ****
+ * Registro de alteração gravado na mesma transação da entidade e entregue depois pelo
+ * OutboxRelay. O id vem de uma sequence para que a ordem de gravação seja a ordem de
+ * entrega e para que os inserts entrem no batching JDBC.
+ */
+@Entity
+@Table(name = "outbox_message")
+public class OutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_seq")
+    @SequenceGenerator(name = "outbox_seq", sequenceName = "outbox_seq", allocationSize = 50)
+    private Long id;
+    @Column(nullable = false)
+    private String aggregateType;
+    @Column(columnDefinition = "uuid", nullable = false)
+    private UUID aggregateId;
+    @Column(nullable = false)
+    private String eventType;
+    @Lob
+    private String payload;
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(nullable = false)
+    private Date createdAt;
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date deliveredAt;
+
+    public OutboxMessage() {}
+
+    public OutboxMessage(String aggregateType, UUID aggregateId, String eventType, String payload) {
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = new Date();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getAggregateType() {
+        return aggregateType;
+    }
+
+    public void setAggregateType(String aggregateType) {
+        this.aggregateType = aggregateType;
+    }
+
+    public UUID getAggregateId() {
+        return aggregateId;
+    }
+
+    public void setAggregateId(UUID aggregateId) {
+        this.aggregateId = aggregateId;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Date getDeliveredAt() {
+        return deliveredAt;
+    }
+
+    public void setDeliveredAt(Date deliveredAt) {
+        this.deliveredAt = deliveredAt;
+    }
+}
@@ -1,9 +1,12 @@
 package com.pitang.model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import com.fasterxml.jackson.annotation.JsonIdentityInfo;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 
 import javax.persistence.*;
@@ -17,6 +20,8 @@ import java.util.UUID;
 @Entity
 @Table(name = "user")
 @DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user")
 @JsonIdentityInfo(
 		  generator = ObjectIdGenerators.PropertyGenerator.class, 
 		  property = "id")
@@ -31,18 +36,27 @@ public class User {
     private String lastName;
     @NotBlank
     @Email
+    @Column(unique = true)
     private String email;
     @Temporal(TemporalType.DATE)
     @DateTimeFormat(pattern = "dd/MM/yyyy")
     private Date birthday;
     @NotBlank
+    @Column(unique = true)
     private String login;
+    /*
+     * Hash bcrypt (PasswordHasher). Aceito no JSON de entrada, nunca devolvido.
+     */
     @NotBlank
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String password;
     @NotBlank
     private String phone;
     @OneToMany(mappedBy = "user", cascade = CascadeType.MERGE)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user-cars")
     private List<Car> cars;
+    @Version
+    private Long version;
 
     public User() {}
 
@@ -118,6 +132,14 @@ public class User {
         this.cars = cars;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
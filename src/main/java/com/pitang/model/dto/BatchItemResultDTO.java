@@ -0,0 +1,59 @@
+package com.pitang.model.dto;
+
+import com.pitang.exceptionhandler.CustomExceptionHandler;
+
+import java.util.List;
+import java.util.UUID;
+
+public class BatchItemResultDTO {
+
+	public static final String CREATED = "CREATED";
+	public static final String REJECTED = "REJECTED";
+
+	private int index;
+	private UUID id;
+	private String status;
+	private List<CustomExceptionHandler.Error> errors;
+
+	public BatchItemResultDTO() {}
+
+	public BatchItemResultDTO(int index, UUID id, String status, List<CustomExceptionHandler.Error> errors) {
+		this.index = index;
+		this.id = id;
+		this.status = status;
+		this.errors = errors;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public void setIndex(int index) {
+		this.index = index;
+	}
+
+	public UUID getId() {
+		return id;
+	}
+
+	public void setId(UUID id) {
+		this.id = id;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	public void setStatus(String status) {
+		this.status = status;
+	}
+
+	public List<CustomExceptionHandler.Error> getErrors() {
+		return errors;
+	}
+
+	public void setErrors(List<CustomExceptionHandler.Error> errors) {
+		this.errors = errors;
+	}
+
+}
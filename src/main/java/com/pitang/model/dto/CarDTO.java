@@ -11,6 +11,18 @@ public class CarDTO {
 	private String color;
 	private UUID userId;
 
+	public CarDTO() {
+	}
+
+	public CarDTO(UUID id, int year, String licensePlate, String model, String color, UUID userId) {
+		this.id = id;
+		this.year = year;
+		this.licensePlate = licensePlate;
+		this.model = model;
+		this.color = color;
+		this.userId = userId;
+	}
+
 	public UUID getId() {
 		return id;
 	}
@@ -0,0 +1,39 @@
+package com.pitang.model.dto;
+
+public class TokenDTO {
+
+    private String token;
+    private String tokenType = "Bearer";
+    private long expiresIn;
+
+    public TokenDTO() {}
+
+    public TokenDTO(String token, long expiresIn) {
+        this.token = token;
+        this.expiresIn = expiresIn;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public String getTokenType() {
+        return tokenType;
+    }
+
+    public void setTokenType(String tokenType) {
+        this.tokenType = tokenType;
+    }
+
+    public long getExpiresIn() {
+        return expiresIn;
+    }
+
+    public void setExpiresIn(long expiresIn) {
+        this.expiresIn = expiresIn;
+    }
+}
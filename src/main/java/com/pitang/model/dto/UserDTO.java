@@ -14,7 +14,6 @@ public class UserDTO {
     @DateTimeFormat(pattern = "dd/MM/yyyy")
     private Date birthday;
     private String login;
-    private String password;
     private String phone;
 
     public UUID getId() {
@@ -65,14 +64,6 @@ public class UserDTO {
         this.login = login;
     }
 
-    public String getPassword() {
-        return password;
-    }
-
-    public void setPassword(String password) {
-        this.password = password;
-    }
-
     public String getPhone() {
         return phone;
     }
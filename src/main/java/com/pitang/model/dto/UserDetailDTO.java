@@ -0,0 +1,16 @@
+package com.pitang.model.dto;
+
+import java.util.List;
+
+public class UserDetailDTO extends UserDTO {
+
+    private List<CarDTO> cars;
+
+    public List<CarDTO> getCars() {
+        return cars;
+    }
+
+    public void setCars(List<CarDTO> cars) {
+        this.cars = cars;
+    }
+}
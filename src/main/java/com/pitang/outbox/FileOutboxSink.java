@@ -0,0 +1,47 @@
+package com.pitang.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.pitang.model.OutboxMessage;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/*
+ ****
+ * Acrescenta cada mensagem como uma linha JSON no arquivo, aberto com SYNC. Uma falha
+ * no meio do lote faz o lote inteiro ser reenviado, então linhas podem se repetir.
+ */
+public class FileOutboxSink implements OutboxSink {
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+
+    public FileOutboxSink(Path file, ObjectMapper objectMapper) {
+        this.file = file;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void send(List<OutboxMessage> messages) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE, StandardOpenOption.SYNC)) {
+            for (OutboxMessage message : messages) {
+                ObjectNode line = objectMapper.createObjectNode();
+                line.put("id", message.getId());
+                line.put("aggregateType", message.getAggregateType());
+                line.put("aggregateId", message.getAggregateId().toString());
+                line.put("eventType", message.getEventType());
+                line.put("createdAt", message.getCreatedAt().getTime());
+                line.set("payload", message.getPayload() == null ? null : objectMapper.readTree(message.getPayload()));
+                writer.write(objectMapper.writeValueAsString(line));
+                writer.newLine();
+            }
+        }
+    }
+}
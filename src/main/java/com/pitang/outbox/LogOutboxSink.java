@@ -0,0 +1,20 @@
+package com.pitang.outbox;
+
+import com.pitang.model.OutboxMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+public class LogOutboxSink implements OutboxSink {
+
+    private static final Logger log = LoggerFactory.getLogger("outbox");
+
+    @Override
+    public void send(List<OutboxMessage> messages) {
+        for (OutboxMessage message : messages) {
+            log.info("{} {} {} {}", message.getId(), message.getAggregateType(), message.getAggregateId(),
+                    message.getEventType());
+        }
+    }
+}
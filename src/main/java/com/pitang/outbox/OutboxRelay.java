@@ -0,0 +1,98 @@
+package com.pitang.outbox;
+
+import com.pitang.config.property.DesafioApiProperty;
+import com.pitang.model.OutboxMessage;
+import com.pitang.repository.OutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/*
+ ****
+ * Entrega as mensagens pendentes do outbox em lotes, na ordem do id. Um lote só é
+ * marcado como entregue depois que o OutboxSink confirma; se o sink falhar, o relay
+ * para e tenta o mesmo lote na próxima execução, mantendo a ordem por entidade.
+ * Feito para uma única instância da aplicação drenando o outbox.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxRepository outboxRepository;
+    private final OutboxSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final DesafioApiProperty.Outbox properties;
+    private final Counter delivered;
+    private final Counter failures;
+
+    @Autowired
+    public OutboxRelay(OutboxRepository outboxRepository, OutboxSink sink, PlatformTransactionManager transactionManager,
+                       DesafioApiProperty desafioApiProperty, MeterRegistry registry) {
+        this.outboxRepository = outboxRepository;
+        this.sink = sink;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = desafioApiProperty.getOutbox();
+        this.delivered = registry.counter("outbox.delivered");
+        this.failures = registry.counter("outbox.failures");
+        Gauge.builder("outbox.pending", outboxRepository, OutboxRepository::countByDeliveredAtIsNull)
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${desafio-pitang.outbox.poll-interval-ms:1000}")
+    public void scheduledDrain() {
+        if (properties.isRelayEnabled())
+            drain();
+    }
+
+    /*
+     ****
+     * Entrega lotes até não sobrar mensagem pendente ou o sink falhar. Devolve quantas
+     * mensagens foram entregues.
+     */
+    public synchronized int drain() {
+        int total = 0;
+        while (true) {
+            List<OutboxMessage> batch = outboxRepository
+                    .findByDeliveredAtIsNullOrderByIdAsc(PageRequest.of(0, properties.getBatchSize()));
+            if (batch.isEmpty())
+                break;
+
+            try {
+                sink.send(batch);
+            } catch (Exception e) {
+                failures.increment();
+                log.warn("Outbox sink failed, {} messages will be retried", batch.size(), e);
+                break;
+            }
+
+            List<Long> ids = batch.stream().map(OutboxMessage::getId).collect(Collectors.toList());
+            transactionTemplate.execute(status -> outboxRepository.markDelivered(ids, new Date()));
+            delivered.increment(batch.size());
+            total += batch.size();
+
+            if (batch.size() < properties.getBatchSize())
+                break;
+        }
+        return total;
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void purgeDelivered() {
+        Date before = new Date(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(properties.getRetentionMinutes()));
+        transactionTemplate.execute(status -> outboxRepository.deleteDeliveredBefore(before));
+    }
+}
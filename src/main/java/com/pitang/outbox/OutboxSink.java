@@ -0,0 +1,16 @@
+package com.pitang.outbox;
+
+import com.pitang.model.OutboxMessage;
+
+import java.util.List;
+
+/*
+ ****
+ * Destino das mensagens do outbox. As mensagens chegam na ordem de gravação; se send
+ * lançar exceção o lote inteiro é reenviado na próxima execução do relay, então o
+ * destino deve tolerar mensagens repetidas (entrega at-least-once).
+ */
+public interface OutboxSink {
+
+    void send(List<OutboxMessage> messages) throws Exception;
+}
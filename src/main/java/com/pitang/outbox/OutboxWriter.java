@@ -0,0 +1,126 @@
+package com.pitang.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pitang.event.EntityChangedEvent;
+import com.pitang.event.EntityChangedEvent.Change;
+import com.pitang.mapper.CarMapper;
+import com.pitang.mapper.UserMapper;
+import com.pitang.model.Car;
+import com.pitang.model.OutboxMessage;
+import com.pitang.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ ****
+ * Grava no outbox as alterações publicadas pelos serviços, na mesma transação da
+ * alteração. Os eventos da transação são acumulados e gravados no beforeCommit, com
+ * um registro por entidade (CREATED seguido de UPDATED continua CREATED; criado e
+ * removido na mesma transação não gera registro) e o payload com o estado final.
+ */
+@Component
+public class OutboxWriter {
+
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final UserMapper userMapper;
+    private final CarMapper carMapper;
+    private final TransactionTemplate requiresNew;
+
+    @Autowired
+    public OutboxWriter(EntityManager entityManager, ObjectMapper objectMapper, UserMapper userMapper,
+                        CarMapper carMapper, PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.userMapper = userMapper;
+        this.carMapper = carMapper;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            // Alteração feita fora de transação: o registro vai numa transação própria
+            requiresNew.execute(status -> {
+                entityManager.persist(toMessage(event));
+                return null;
+            });
+            return;
+        }
+        pending().add(event);
+    }
+
+    private Pending pending() {
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Pending created = new Pending();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    created.events.values().forEach(event -> entityManager.persist(toMessage(event)));
+                    entityManager.flush();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(OutboxWriter.this);
+                }
+            });
+            pending = created;
+        }
+        return pending;
+    }
+
+    private OutboxMessage toMessage(EntityChangedEvent event) {
+        String payload = null;
+        if (event.getChange() != Change.DELETED) {
+            try {
+                payload = objectMapper.writeValueAsString(toPayload(event.getEntity()));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Could not serialize outbox payload for " + event, e);
+            }
+        }
+        return new OutboxMessage(event.getAggregateType(), event.getAggregateId(), event.getChange().name(), payload);
+    }
+
+    private Object toPayload(Object entity) {
+        if (entity instanceof User)
+            return userMapper.toDTO((User) entity);
+        if (entity instanceof Car)
+            return carMapper.toDTO((Car) entity);
+        return entity;
+    }
+
+    private static class Pending {
+
+        private final Map<String, EntityChangedEvent> events = new LinkedHashMap<>();
+
+        void add(EntityChangedEvent event) {
+            String key = event.getAggregateType() + ":" + event.getAggregateId();
+            EntityChangedEvent previous = events.get(key);
+            if (previous == null) {
+                events.put(key, event);
+            } else if (previous.getChange() == Change.CREATED && event.getChange() == Change.DELETED) {
+                events.remove(key);
+            } else if (previous.getChange() == Change.CREATED) {
+                events.put(key, new EntityChangedEvent(event.getSource(), event.getAggregateType(),
+                        event.getAggregateId(), Change.CREATED, event.getEntity()));
+            } else {
+                events.put(key, event);
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.pitang.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pitang.config.property.DesafioApiProperty;
+import com.pitang.exceptionhandler.CustomExceptionHandler;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.MessageSource;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ ****
+ * Limite de requisições por cliente (chave de API configurada ou IP) com TokenBuckets: excedeu, 429 com
+ * Retry-After. Buscas por firstName/model custam mais fichas. Antes de chegar ao JPA a
+ * requisição também é recusada com 503 quando há requisições demais em andamento ou
+ * threads demais esperando conexão do Hikari. O /actuator não passa pelo limite.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final DesafioApiProperty.RateLimit config;
+    private final TokenBuckets buckets;
+    private final MessageSource messageSource;
+    private final ObjectMapper objectMapper;
+    private final HikariDataSource hikari;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rateLimited;
+    private final Counter overloaded;
+
+    @Autowired
+    public RateLimitFilter(DesafioApiProperty property, MessageSource messageSource, ObjectMapper objectMapper,
+                           DataSource dataSource, MeterRegistry registry) {
+        this.config = property.getRateLimit();
+        this.buckets = new TokenBuckets(config.getBuckets(), config.getCapacity(), config.getRefillPerSecond());
+        this.messageSource = messageSource;
+        this.objectMapper = objectMapper;
+        this.hikari = dataSource instanceof HikariDataSource ? (HikariDataSource) dataSource : null;
+        this.rateLimited = registry.counter("desafio.requests.rejected", "reason", "rate-limit");
+        this.overloaded = registry.counter("desafio.requests.rejected", "reason", "overload");
+        registry.gauge("desafio.requests.in-flight", inFlight);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !config.isEnabled() || request.getRequestURI().startsWith(request.getContextPath() + "/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long wait = buckets.tryAcquire(clientKey(request), cost(request));
+        if (wait > 0) {
+            rateLimited.increment();
+            reject(request, response, HttpStatus.TOO_MANY_REQUESTS, TimeUnit.NANOSECONDS.toSeconds(wait) + 1,
+                    "request.rate-limited", "9");
+            return;
+        }
+
+        int current = inFlight.incrementAndGet();
+        try {
+            if (overloaded(current)) {
+                overloaded.increment();
+                reject(request, response, HttpStatus.SERVICE_UNAVAILABLE, 1, "request.overloaded", "10");
+                return;
+            }
+            chain.doFilter(request, response);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private boolean overloaded(int current) {
+        if (config.getMaxInFlight() > 0 && current > config.getMaxInFlight())
+            return true;
+        if (config.getMaxPendingConnections() <= 0 || hikari == null)
+            return false;
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        return pool != null && pool.getThreadsAwaitingConnection() > config.getMaxPendingConnections();
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        String apiKey = request.getHeader(config.getApiKeyHeader());
+        return apiKey != null && config.getApiKeys().contains(apiKey)
+                ? "key:" + apiKey : "ip:" + request.getRemoteAddr();
+    }
+
+    private int cost(HttpServletRequest request) {
+        boolean search = "GET".equals(request.getMethod())
+                && (request.getParameter("firstName") != null || request.getParameter("model") != null);
+        return search ? config.getSearchCost() : 1;
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, HttpStatus status,
+                        long retryAfterSeconds, String message, String errorCode) throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+        String userMessage = messageSource.getMessage(message, null, request.getLocale());
+        objectMapper.writeValue(response.getOutputStream(),
+                Collections.singletonList(new CustomExceptionHandler.Error(userMessage, errorCode)));
+    }
+}
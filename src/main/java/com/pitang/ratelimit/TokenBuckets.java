@@ -0,0 +1,71 @@
+package com.pitang.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/*
+ ****
+ * Baldes de fichas sem lock, um por faixa de hash da chave do cliente. Cada balde guarda só
+ * o instante teórico em que estaria cheio de novo (GCRA, equivalente ao token bucket) e é
+ * atualizado com um compareAndSet. A quantidade de baldes é fixa: não há mapa por cliente
+ * para crescer nem limpar; clientes que colidem dividem o limite.
+ */
+public class TokenBuckets {
+
+    /*
+     * Um balde a cada 8 longs (64 bytes): baldes vizinhos não dividem linha de cache.
+     */
+    private static final int STRIDE = 8;
+
+    private final AtomicLongArray state;
+    private final int mask;
+    private final long interval;
+    private final long tolerance;
+    private final int capacity;
+    private final LongSupplier clock;
+    private final long origin;
+
+    public TokenBuckets(int buckets, int capacity, int refillPerSecond) {
+        this(buckets, capacity, refillPerSecond, System::nanoTime);
+    }
+
+    TokenBuckets(int buckets, int capacity, int refillPerSecond, LongSupplier clock) {
+        if (Integer.bitCount(buckets) != 1)
+            throw new IllegalArgumentException("buckets deve ser potência de 2: " + buckets);
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity deve ser maior que zero: " + capacity);
+        if (refillPerSecond <= 0)
+            throw new IllegalArgumentException("refillPerSecond deve ser maior que zero: " + refillPerSecond);
+        this.state = new AtomicLongArray(buckets * STRIDE);
+        this.mask = buckets - 1;
+        this.interval = 1_000_000_000L / refillPerSecond;
+        this.tolerance = interval * capacity;
+        this.capacity = capacity;
+        this.clock = clock;
+        this.origin = clock.getAsLong();
+    }
+
+    /*
+     * Consome cost fichas do balde da chave. Devolve 0 quando aceitou, ou quantos
+     * nanossegundos faltam para haver fichas suficientes.
+     */
+    public long tryAcquire(String key, int cost) {
+        int slot = slot(key);
+        long increment = interval * Math.min(cost, capacity);
+        while (true) {
+            long now = clock.getAsLong() - origin;
+            long full = state.get(slot);
+            long next = Math.max(full, now) + increment;
+            long wait = next - now - tolerance;
+            if (wait > 0)
+                return wait;
+            if (state.compareAndSet(slot, full, next))
+                return 0;
+        }
+    }
+
+    private int slot(String key) {
+        int h = key.hashCode();
+        return ((h ^ (h >>> 16)) & mask) * STRIDE;
+    }
+}
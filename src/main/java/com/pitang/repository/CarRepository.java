@@ -1,18 +1,95 @@
 package com.pitang.repository;
 
 import com.pitang.model.Car;
+import com.pitang.model.User;
+import com.pitang.model.dto.CarDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_MODE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface CarRepository extends JpaRepository<Car, UUID> {
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Car findByLicensePlate(String licensePlate);
 
     Page<Car> findAllByModelContainingIgnoreCase(String model, Pageable pageable);
     
     Optional<Car> findByUserIdAndId(UUID userId, UUID carId);
+
+    int EXPORT_FETCH_SIZE = 500;
+
+    @QueryHints({ @QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true"),
+            @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE") })
+    @Query("select c from Car c left join fetch c.user")
+    Stream<Car> streamAll();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE))
+    @Query("select c.id, c.model from Car c")
+    Stream<Object[]> streamModels();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE))
+    @Query("select c.licensePlate from Car c")
+    Stream<String> streamLicensePlates();
+
+    List<Car> findAllByIdIn(Collection<UUID> ids, Pageable pageable);
+
+    String COMPACT = "select new com.pitang.model.dto.CarDTO(c.id, c.year, c.licensePlate, c.model, c.color, c.user.id)"
+            + " from Car c";
+
+    @Query(value = COMPACT + " where upper(c.model) like upper(concat('%', :model, '%'))",
+            countQuery = "select count(c) from Car c where upper(c.model) like upper(concat('%', :model, '%'))")
+    Page<CarDTO> findCompactByModelContainingIgnoreCase(@Param("model") String model, Pageable pageable);
+
+    @Query(COMPACT + " where c.id in :ids")
+    List<CarDTO> findCompactByIdIn(@Param("ids") Collection<UUID> ids, Pageable pageable);
+
+    List<Car> findAllByOrderByIdAsc(Pageable pageable);
+
+    List<Car> findByIdGreaterThanOrderByIdAsc(UUID id, Pageable pageable);
+
+    @Query("select c.licensePlate from Car c where c.licensePlate in :plates")
+    Set<String> findExistingLicensePlates(@Param("plates") Collection<String> plates);
+
+    @Query("select c.id, u.id from Car c left join c.user u where c.id in :ids")
+    List<Object[]> findOwners(@Param("ids") Collection<UUID> ids);
+
+    @Query("select c.id from Car c where c.user.id = :userId and c.id in :ids")
+    List<UUID> findIdsByUserIdAndIdIn(@Param("userId") UUID userId, @Param("ids") Collection<UUID> ids);
+
+    @Query("select c from Car c left join fetch c.user where c.id in :ids")
+    List<Car> findWithUserByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Car c set c.user = :user, c.version = c.version + 1 where c.id in :ids")
+    int updateOwner(@Param("user") User user, @Param("ids") Collection<UUID> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Car c set c.user = null, c.version = c.version + 1 where c.id in :ids")
+    int removeOwner(@Param("ids") Collection<UUID> ids);
+
+    @Query("select c.id from Car c where c.user.id = :userId")
+    List<UUID> findIdsByUserId(@Param("userId") UUID userId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Car c set c.user = null, c.version = c.version + 1 where c.user.id = :userId")
+    int removeOwnerFromAll(@Param("userId") UUID userId);
 }
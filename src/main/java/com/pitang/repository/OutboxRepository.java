@@ -0,0 +1,27 @@
+package com.pitang.repository;
+
+import com.pitang.model.OutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface OutboxRepository extends JpaRepository<OutboxMessage, Long> {
+
+    List<OutboxMessage> findByDeliveredAtIsNullOrderByIdAsc(Pageable pageable);
+
+    long countByDeliveredAtIsNull();
+
+    @Modifying
+    @Query("update OutboxMessage m set m.deliveredAt = :deliveredAt where m.id in :ids")
+    int markDelivered(@Param("ids") Collection<Long> ids, @Param("deliveredAt") Date deliveredAt);
+
+    @Modifying
+    @Query("delete from OutboxMessage m where m.deliveredAt < :before")
+    int deleteDeliveredBefore(@Param("before") Date before);
+}
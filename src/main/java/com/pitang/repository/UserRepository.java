@@ -4,10 +4,24 @@ import com.pitang.model.User;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_MODE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface UserRepository extends JpaRepository<User, UUID> {
 
@@ -19,4 +33,38 @@ public interface UserRepository extends JpaRepository<User, UUID> {
 
 	Optional<User> findByEmailAndId(String email, UUID id);
 
+	@EntityGraph(attributePaths = "cars")
+	Optional<User> findWithCarsById(UUID id);
+
+	int EXPORT_FETCH_SIZE = 500;
+
+	@QueryHints({ @QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+			@QueryHint(name = HINT_READONLY, value = "true"),
+			@QueryHint(name = HINT_CACHE_MODE, value = "IGNORE") })
+	@Query("select u from User u")
+	Stream<User> streamAll();
+
+	@QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE))
+	@Query("select u.id, u.firstName from User u")
+	Stream<Object[]> streamFirstNames();
+
+	@QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE))
+	@Query("select u.email, u.login from User u")
+	Stream<Object[]> streamEmailsAndLogins();
+
+	List<User> findAllByIdIn(Collection<UUID> ids, Pageable pageable);
+
+	List<User> findAllByOrderByIdAsc(Pageable pageable);
+
+	List<User> findByIdGreaterThanOrderByIdAsc(UUID id, Pageable pageable);
+
+	@Query("select u.email from User u where u.email in :emails")
+	Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+	@Query("select u.login from User u where u.login in :logins")
+	Set<String> findExistingLogins(@Param("logins") Collection<String> logins);
+
+	@Query("select u.id from User u where u.id in :ids")
+	Set<UUID> findExistingIds(@Param("ids") Collection<UUID> ids);
+
 }
@@ -0,0 +1,177 @@
+package com.pitang.search;
+
+import com.pitang.config.property.DesafioApiProperty;
+import com.pitang.model.Car;
+import com.pitang.model.User;
+import com.pitang.model.dto.CarDTO;
+import com.pitang.repository.CarRepository;
+import com.pitang.repository.UserRepository;
+import com.pitang.service.support.InClauses;
+import com.pitang.service.support.TransactionHooks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/*
+ ****
+ * Atende as buscas por User.firstName e Car.model a partir de índices de trigramas em
+ * memória. Os índices são carregados na subida da aplicação e atualizados pelos serviços
+ * após o commit de cada escrita. Quando o índice não consegue responder (termo curto,
+ * índice ainda carregando ou resultado grande demais) a busca usa a consulta LIKE.
+ */
+@Service
+public class SearchService {
+
+    private final TrigramIndex userFirstNames = new TrigramIndex();
+    private final TrigramIndex carModels = new TrigramIndex();
+
+    private final UserRepository userRepository;
+    private final CarRepository carRepository;
+    private final DesafioApiProperty.Search properties;
+
+    private volatile boolean ready;
+
+    @Autowired
+    public SearchService(UserRepository userRepository, CarRepository carRepository,
+                         DesafioApiProperty desafioApiProperty) {
+        this.userRepository = userRepository;
+        this.carRepository = carRepository;
+        this.properties = desafioApiProperty.getSearch();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        if (!properties.isEnabled())
+            return;
+
+        try (Stream<Object[]> rows = userRepository.streamFirstNames()) {
+            rows.forEach(row -> userFirstNames.putIfAbsent((UUID) row[0], (String) row[1]));
+        }
+        try (Stream<Object[]> rows = carRepository.streamModels()) {
+            rows.forEach(row -> carModels.putIfAbsent((UUID) row[0], (String) row[1]));
+        }
+        ready = true;
+    }
+
+    public Page<User> findUsersByFirstName(String firstName, Pageable pageable) {
+        Set<UUID> ids = lookup(userFirstNames, firstName);
+        if (ids == null)
+            return userRepository.findAllByFirstNameContainingIgnoreCase(firstName, pageable);
+        Page<User> page = page(ids, pageable, userRepository::findAllByIdIn, User::getId);
+        return page != null ? page : userRepository.findAllByFirstNameContainingIgnoreCase(firstName, pageable);
+    }
+
+    public Page<Car> findCarsByModel(String model, Pageable pageable) {
+        Set<UUID> ids = lookup(carModels, model);
+        if (ids == null)
+            return carRepository.findAllByModelContainingIgnoreCase(model, pageable);
+        Page<Car> page = page(ids, pageable, carRepository::findAllByIdIn, Car::getId);
+        return page != null ? page : carRepository.findAllByModelContainingIgnoreCase(model, pageable);
+    }
+
+    public Page<CarDTO> findCarsByModelCompact(String model, Pageable pageable) {
+        Set<UUID> ids = lookup(carModels, model);
+        if (ids == null)
+            return carRepository.findCompactByModelContainingIgnoreCase(model, pageable);
+        Page<CarDTO> page = page(ids, pageable, carRepository::findCompactByIdIn, CarDTO::getId);
+        return page != null ? page : carRepository.findCompactByModelContainingIgnoreCase(model, pageable);
+    }
+
+    public void indexUser(User user) {
+        UUID id = user.getId();
+        String firstName = user.getFirstName();
+        afterCommit(() -> userFirstNames.put(id, firstName));
+    }
+
+    public void removeUser(UUID id) {
+        afterCommit(() -> userFirstNames.remove(id));
+    }
+
+    public void indexCar(Car car) {
+        UUID id = car.getId();
+        String model = car.getModel();
+        afterCommit(() -> carModels.put(id, model));
+    }
+
+    public void removeCar(UUID id) {
+        afterCommit(() -> carModels.remove(id));
+    }
+
+    private Set<UUID> lookup(TrigramIndex index, String term) {
+        if (!properties.isEnabled() || !ready)
+            return null;
+
+        Set<UUID> ids = index.search(term);
+        if (ids != null && ids.size() > properties.getMaxMatches())
+            return null;
+        return ids;
+    }
+
+    /*
+     ****
+     * Monta a página a partir dos ids encontrados no índice, sem IN com mais de
+     * InClauses.LIMIT ids e sem consulta de contagem (o total é ids.size()). Sem ordenação
+     * pedida, os ids são ordenados e paginados em memória e só os da página vão ao banco.
+     * Com ordenação, quem ordena é o banco; acima de InClauses.LIMIT ids devolve null e a
+     * busca usa a consulta LIKE.
+     */
+    private static <T> Page<T> page(Set<UUID> ids, Pageable pageable,
+                                    BiFunction<Collection<UUID>, Pageable, List<T>> findAllByIdIn,
+                                    Function<T, UUID> idOf) {
+        if (ids.isEmpty())
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+
+        if (pageable.isPaged() && pageable.getSort().isUnsorted()) {
+            List<UUID> sorted = new ArrayList<>(ids);
+            Collections.sort(sorted);
+            int from = (int) Math.min(pageable.getOffset(), sorted.size());
+            List<UUID> pageIds = sorted.subList(from, Math.min(from + pageable.getPageSize(), sorted.size()));
+            if (pageIds.isEmpty())
+                return new PageImpl<>(Collections.emptyList(), pageable, ids.size());
+
+            Map<UUID, T> found = new HashMap<>();
+            findAllByIdIn.apply(pageIds, Pageable.unpaged()).forEach(item -> found.put(idOf.apply(item), item));
+            List<T> content = new ArrayList<>(pageIds.size());
+            pageIds.forEach(id -> {
+                T item = found.get(id);
+                if (item != null)
+                    content.add(item);
+            });
+            return new PageImpl<>(content, pageable, ids.size());
+        }
+
+        if (ids.size() > InClauses.LIMIT)
+            return null;
+        return new PageImpl<>(findAllByIdIn.apply(ids, pageable), pageable, ids.size());
+    }
+
+    /*
+     ****
+     * O índice só reflete o que foi efetivado no banco; se a transação for desfeita
+     * nada é alterado.
+     */
+    private void afterCommit(Runnable change) {
+        if (!properties.isEnabled())
+            return;
+
+        TransactionHooks.afterCommit(change);
+    }
+}
@@ -0,0 +1,120 @@
+package com.pitang.search;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ ****
+ * Índice invertido de trigramas para busca "contém" sem diferenciar maiúsculas.
+ * Cada valor é quebrado em trigramas e cada trigrama aponta para os ids que o contêm.
+ * A busca percorre apenas a menor lista de ids entre os trigramas do termo e confirma
+ * cada candidato contra o valor indexado, então o resultado é exato.
+ * Leituras não bloqueiam; escritas são serializadas.
+ */
+public class TrigramIndex {
+
+    public static final int GRAM = 3;
+
+    private final Map<UUID, String> values = new ConcurrentHashMap<>();
+    private final Map<String, Set<UUID>> postings = new ConcurrentHashMap<>();
+
+    public synchronized void put(UUID id, String value) {
+        String normalized = normalize(value);
+        String previous = normalized == null ? values.remove(id) : values.put(id, normalized);
+        if (previous != null && previous.equals(normalized))
+            return;
+
+        if (previous != null)
+            unlink(id, previous);
+        if (normalized != null)
+            link(id, normalized);
+    }
+
+    /*
+     * Usado na carga inicial: não sobrescreve um valor já gravado por uma escrita mais recente.
+     */
+    public synchronized void putIfAbsent(UUID id, String value) {
+        String normalized = normalize(value);
+        if (normalized != null && values.putIfAbsent(id, normalized) == null)
+            link(id, normalized);
+    }
+
+    public synchronized void remove(UUID id) {
+        String previous = values.remove(id);
+        if (previous != null)
+            unlink(id, previous);
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public synchronized void clear() {
+        values.clear();
+        postings.clear();
+    }
+
+    /*
+     ****
+     * Devolve os ids cujo valor contém o termo. Termos com menos de três caracteres
+     * não podem ser respondidos pelo índice e devolvem null.
+     */
+    public Set<UUID> search(String term) {
+        String normalized = normalize(term);
+        if (normalized == null || normalized.length() < GRAM)
+            return null;
+
+        Set<UUID> smallest = null;
+        for (String gram : trigrams(normalized)) {
+            Set<UUID> ids = postings.get(gram);
+            if (ids == null)
+                return Collections.emptySet();
+            if (smallest == null || ids.size() < smallest.size())
+                smallest = ids;
+        }
+
+        Set<UUID> matches = new HashSet<>();
+        for (UUID id : smallest) {
+            String value = values.get(id);
+            if (value != null && value.contains(normalized))
+                matches.add(id);
+        }
+        return matches;
+    }
+
+    private void link(UUID id, String value) {
+        for (String gram : trigrams(value)) {
+            postings.compute(gram, (key, ids) -> {
+                Set<UUID> linked = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+                linked.add(id);
+                return linked;
+            });
+        }
+    }
+
+    private void unlink(UUID id, String value) {
+        for (String gram : trigrams(value)) {
+            postings.computeIfPresent(gram, (key, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    private static Set<String> trigrams(String value) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+}
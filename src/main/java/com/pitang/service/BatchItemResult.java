@@ -0,0 +1,43 @@
+package com.pitang.service;
+
+/*
+ ****
+ * Resultado de um item de uma operação em lote. O índice corresponde à posição
+ * do item na lista recebida; quando o item é rejeitado, a exceção indica o motivo.
+ */
+public class BatchItemResult<T> {
+
+    private final int index;
+    private final T item;
+    private final RuntimeException rejection;
+
+    private BatchItemResult(int index, T item, RuntimeException rejection) {
+        this.index = index;
+        this.item = item;
+        this.rejection = rejection;
+    }
+
+    public static <T> BatchItemResult<T> accepted(int index, T item) {
+        return new BatchItemResult<>(index, item, null);
+    }
+
+    public static <T> BatchItemResult<T> rejected(int index, T item, RuntimeException rejection) {
+        return new BatchItemResult<>(index, item, rejection);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public T getItem() {
+        return item;
+    }
+
+    public RuntimeException getRejection() {
+        return rejection;
+    }
+
+    public boolean isRejected() {
+        return rejection != null;
+    }
+}
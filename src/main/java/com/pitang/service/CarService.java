@@ -1,25 +1,70 @@
 package com.pitang.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.pitang.event.EntityChangedEvent;
+import com.pitang.event.EntityChangedEvent.Change;
 import com.pitang.model.Car;
+import com.pitang.model.User;
 import com.pitang.repository.CarRepository;
+import com.pitang.repository.UserRepository;
+import com.pitang.search.SearchService;
+import com.pitang.service.exception.CarOwnerNotFoundException;
 import com.pitang.service.exception.CarWithLicensePlateDuplicated;
+import com.pitang.service.support.InClauses;
+import com.pitang.service.support.MergePatcher;
+import com.pitang.service.support.UserCarsCache;
+import com.pitang.service.support.Versions;
+import com.pitang.service.uniqueness.UniqueValueSet;
+import com.pitang.service.uniqueness.UniquenessService;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class CarService {
 
     private final CarRepository carRepository;
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final SearchService searchService;
+    private final UniquenessService uniquenessService;
+    private final UserCarsCache userCarsCache;
+    private final ApplicationEventPublisher publisher;
+    private final MergePatcher mergePatcher;
+    private final int batchSize;
 
     @Autowired
-    public CarService(CarRepository carRepository) {
+    public CarService(CarRepository carRepository, UserRepository userRepository, EntityManager entityManager,
+                      SearchService searchService, UniquenessService uniquenessService, UserCarsCache userCarsCache,
+                      ApplicationEventPublisher publisher, MergePatcher mergePatcher,
+                      @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
         this.carRepository = carRepository;
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.searchService = searchService;
+        this.uniquenessService = uniquenessService;
+        this.userCarsCache = userCarsCache;
+        this.publisher = publisher;
+        this.mergePatcher = mergePatcher;
+        this.batchSize = batchSize;
     }
 
     @Transactional
@@ -29,19 +74,217 @@ public class CarService {
          */
         validatePlate(car);
 
+        Change change = car.isNewCar() ? Change.CREATED : Change.UPDATED;
         car = carRepository.save(car);
+        searchService.indexCar(car);
+        userCarsCache.evict(UserCarsCache.ownerOf(car));
+        publisher.publishEvent(EntityChangedEvent.of(this, car, change));
         return car;
     }
 
+    /*
+     ****
+     * Cadastro de carros em lote. Placas e donos são conferidos com consultas IN e os
+     * inserts são agrupados pelo batching JDBC. Itens rejeitados não impedem os demais.
+     */
+    @Transactional
+    public List<BatchItemResult<Car>> saveAll(List<Car> cars) {
+        Set<String> plates = new HashSet<>();
+        Set<UUID> owners = new HashSet<>();
+        for (Car car : cars) {
+            plates.add(car.getLicensePlate());
+            UUID owner = UserCarsCache.ownerOf(car);
+            if (owner != null)
+                owners.add(owner);
+        }
+        Set<String> platesInUse = new HashSet<>();
+        InClauses.chunks(plates).forEach(chunk -> platesInUse.addAll(carRepository.findExistingLicensePlates(chunk)));
+        Set<UUID> existingOwners = new HashSet<>();
+        InClauses.chunks(owners).forEach(chunk -> existingOwners.addAll(userRepository.findExistingIds(chunk)));
+
+        List<BatchItemResult<Car>> results = new ArrayList<>(cars.size());
+        List<Car> accepted = new ArrayList<>();
+        for (int i = 0; i < cars.size(); i++) {
+            Car car = cars.get(i);
+            UUID owner = UserCarsCache.ownerOf(car);
+            RuntimeException rejection = null;
+            if (owner != null && !existingOwners.contains(owner))
+                rejection = new CarOwnerNotFoundException();
+            else if (platesInUse.contains(car.getLicensePlate()))
+                rejection = new CarWithLicensePlateDuplicated();
+            else {
+                UniqueValueSet.Reservation reservation = uniquenessService.tryClaimLicensePlate(car.getLicensePlate());
+                if (reservation == null)
+                    rejection = new CarWithLicensePlateDuplicated();
+            }
+            if (rejection != null) {
+                results.add(BatchItemResult.rejected(i, car, rejection));
+                continue;
+            }
+            platesInUse.add(car.getLicensePlate());
+            accepted.add(car);
+            results.add(BatchItemResult.accepted(i, car));
+        }
+
+        Set<UUID> touchedOwners = new HashSet<>();
+        for (int i = 0; i < accepted.size(); i++) {
+            Car car = accepted.get(i);
+            UUID owner = UserCarsCache.ownerOf(car);
+            car.setId(null);
+            car.setUser(owner == null ? null : entityManager.getReference(User.class, owner));
+            entityManager.persist(car);
+            searchService.indexCar(car);
+            publisher.publishEvent(EntityChangedEvent.of(this, car, Change.CREATED));
+            if (owner != null)
+                touchedOwners.add(owner);
+
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        userCarsCache.evict(touchedOwners.toArray(new UUID[0]));
+        return results;
+    }
+
+    /*
+     ****
+     * Passa os carros para o usuário com um UPDATE ... WHERE id IN por bloco de ids. Ids
+     * inexistentes e carros que já são do usuário são ignorados. Devolve os ids alterados.
+     */
+    @Transactional
+    public List<UUID> reassign(UUID userId, Collection<UUID> carIds) {
+        User owner = userRepository.findById(userId).orElseThrow(() -> new EmptyResultDataAccessException(1));
+        List<UUID> changed = new ArrayList<>();
+        Set<UUID> owners = new HashSet<>();
+        owners.add(userId);
+        for (List<UUID> chunk : InClauses.chunks(new HashSet<>(carIds))) {
+            for (Object[] row : carRepository.findOwners(chunk)) {
+                if (!userId.equals(row[1])) {
+                    changed.add((UUID) row[0]);
+                    if (row[1] != null)
+                        owners.add((UUID) row[1]);
+                }
+            }
+        }
+        InClauses.chunks(changed).forEach(chunk -> carRepository.updateOwner(owner, chunk));
+        publishChanges(changed, owners);
+        return changed;
+    }
+
+    /*
+     ****
+     * Desassocia do usuário, num UPDATE por bloco de ids, os carros da lista que são dele.
+     * Devolve os ids alterados.
+     */
+    @Transactional
+    public List<UUID> detach(UUID userId, Collection<UUID> carIds) {
+        List<UUID> owned = new ArrayList<>();
+        InClauses.chunks(new HashSet<>(carIds))
+                .forEach(chunk -> owned.addAll(carRepository.findIdsByUserIdAndIdIn(userId, chunk)));
+        InClauses.chunks(owned).forEach(carRepository::removeOwner);
+        publishChanges(owned, Collections.singleton(userId));
+        return owned;
+    }
+
+    /*
+     ****
+     * O UPDATE em massa não passa pelo contexto de persistência: os carros alterados são
+     * relidos (uma consulta por bloco) para publicar os eventos, e as coleções de carros
+     * dos donos antigos e novos saem do cache de segundo nível.
+     */
+    private void publishChanges(List<UUID> carIds, Set<UUID> owners) {
+        for (List<UUID> chunk : InClauses.chunks(carIds)) {
+            for (Car car : carRepository.findWithUserByIdIn(chunk)) {
+                publisher.publishEvent(EntityChangedEvent.of(this, car, Change.UPDATED));
+            }
+        }
+        userCarsCache.evict(owners.toArray(new UUID[0]));
+    }
+
     @Transactional
     public Car update(UUID id, Car car) {
+        return update(id, car, null);
+    }
+
+    /*
+     ****
+     * Atualização condicionada à versão (If-Match). Versão diferente da atual resulta
+     * em ObjectOptimisticLockingFailureException.
+     */
+    @Transactional
+    public Car update(UUID id, Car car, Long expectedVersion) {
         Optional<Car> carSaved = findById(id);
         if (carSaved.isPresent()) {
-            BeanUtils.copyProperties(car, carSaved.get(), "id");
+            Versions.check(Car.class, id, expectedVersion, carSaved.get().getVersion());
+            String previousLicensePlate = carSaved.get().getLicensePlate();
+            userCarsCache.evict(UserCarsCache.ownerOf(carSaved.get()));
+            BeanUtils.copyProperties(car, carSaved.get(), "id", "version");
+
+            if (!Objects.equals(previousLicensePlate, carSaved.get().getLicensePlate())) {
+                uniquenessService.claimLicensePlate(carSaved.get().getLicensePlate(), id);
+                uniquenessService.forgetLicensePlate(previousLicensePlate);
+            }
             return this.save(carSaved.get());
         } else return null;
     }
 
+    /*
+     ****
+     * Atualização parcial (JSON Merge Patch): só os campos que mudaram são gravados e a
+     * placa só é verificada se mudou. O dono do carro não é alterado por aqui.
+     */
+    @Transactional
+    public Car patch(UUID id, JsonNode patch, Long expectedVersion) {
+        Car car = findById(id).get();
+        Versions.check(Car.class, id, expectedVersion, car.getVersion());
+
+        Map<String, Object> changes = mergePatcher.changes(patch, car, Car.class, "id", "version", "user");
+        if (changes.isEmpty())
+            return car;
+
+        if (changes.containsKey("licensePlate")) {
+            uniquenessService.claimLicensePlate((String) changes.get("licensePlate"), id);
+            uniquenessService.forgetLicensePlate(car.getLicensePlate());
+        }
+        mergePatcher.apply(car, changes);
+
+        if (changes.containsKey("model"))
+            searchService.indexCar(car);
+        publisher.publishEvent(EntityChangedEvent.of(this, car, Change.UPDATED));
+        return car;
+    }
+
+    @Transactional
+    public void delete(UUID id) {
+        Car car = findById(id).get();
+        carRepository.delete(car);
+        searchService.removeCar(id);
+        userCarsCache.evict(UserCarsCache.ownerOf(car));
+        publisher.publishEvent(EntityChangedEvent.of(this, car, Change.DELETED));
+        uniquenessService.forgetLicensePlate(car.getLicensePlate());
+    }
+
+    /*
+     ****
+     * Percorre todos os carros por um cursor JDBC. O contexto de persistência é limpo
+     * a cada bloco lido para que a memória não cresça com o tamanho da tabela.
+     */
+    @Transactional(readOnly = true)
+    public void exportAll(Consumer<Car> consumer) {
+        try (Stream<Car> cars = carRepository.streamAll()) {
+            int[] read = {0};
+            cars.forEach(car -> {
+                consumer.accept(car);
+                if (++read[0] % CarRepository.EXPORT_FETCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            });
+        }
+    }
+
     /*
      ****
      * Verificação para saber se o id corresponde a um carro no banco de dados.
@@ -60,15 +303,11 @@ public class CarService {
     private void validatePlate(Car car) {
 
         if (car.isNewCar()) {
-            Car carWithLicensePlateDuplicated = carRepository.findByLicensePlate(car.getLicensePlate());
-
             /*
              ****
              * Se a placa estiver em uso, então é lançada uma exceção que será tratada por CustomExceptionHandler
              */
-            if (carWithLicensePlateDuplicated != null) {
-                throw new CarWithLicensePlateDuplicated();
-            }
+            uniquenessService.claimLicensePlate(car.getLicensePlate(), null);
         }
     }
 }
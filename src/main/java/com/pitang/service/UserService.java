@@ -1,88 +1,260 @@
 package com.pitang.service;
 
+import com.pitang.event.EntityChangedEvent;
+import com.pitang.event.EntityChangedEvent.Change;
 import com.pitang.model.Car;
 import com.pitang.model.User;
 import com.pitang.repository.CarRepository;
 import com.pitang.repository.UserRepository;
+import com.pitang.search.SearchService;
+import com.pitang.service.credential.PasswordHasher;
 import com.pitang.service.exception.CarWithLicensePlateDuplicated;
 import com.pitang.service.exception.EmailDuplicateException;
 import com.pitang.service.exception.LoginDuplicateException;
+import com.pitang.service.support.InClauses;
+import com.pitang.service.support.MergePatcher;
+import com.pitang.service.support.UserCarsCache;
+import com.pitang.service.support.Versions;
+import com.pitang.service.uniqueness.UniqueValueSet;
+import com.pitang.service.uniqueness.UniquenessService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.hibernate.Hibernate;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManager;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 public class UserService {
 
 	private final UserRepository userRepository;
 	private final CarRepository carRepository;
+	private final EntityManager entityManager;
+	private final SearchService searchService;
+	private final UniquenessService uniquenessService;
+	private final UserCarsCache userCarsCache;
+	private final ApplicationEventPublisher publisher;
+	private final MergePatcher mergePatcher;
+	private final PasswordHasher passwordHasher;
+	private final TransactionTemplate transactionTemplate;
+	private final int batchSize;
 
 	@Autowired
-	public UserService(UserRepository userRepository, CarRepository carRepository) {
+	public UserService(UserRepository userRepository, CarRepository carRepository, EntityManager entityManager,
+			SearchService searchService, UniquenessService uniquenessService, UserCarsCache userCarsCache,
+			ApplicationEventPublisher publisher, MergePatcher mergePatcher, PasswordHasher passwordHasher,
+			PlatformTransactionManager transactionManager, @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
 		this.userRepository = userRepository;
 		this.carRepository = carRepository;
+		this.entityManager = entityManager;
+		this.searchService = searchService;
+		this.uniquenessService = uniquenessService;
+		this.userCarsCache = userCarsCache;
+		this.publisher = publisher;
+		this.mergePatcher = mergePatcher;
+		this.passwordHasher = passwordHasher;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.batchSize = batchSize;
 	}
 
-	@Transactional
+	/*
+	 ****
+	 * A senha de um usuário novo vira hash antes de abrir a transação, para não segurar
+	 * uma conexão do banco enquanto o bcrypt roda.
+	 */
 	public User save(User user) {
+		if (user.getId() == null)
+			user.setPassword(passwordHasher.hash(user.getPassword()));
+		return transactionTemplate.execute(status -> persist(user));
+	}
+
+	private User persist(User user) {
 		validateEmailDuplicate(user);
 		validateLoginDuplicate(user);
+		Change change = user.getId() == null ? Change.CREATED : Change.UPDATED;
 		List<Car> cars = user.getCars();
 		user.setCars(new ArrayList<>());
 		user = userRepository.save(user);
+		searchService.indexUser(user);
+		publisher.publishEvent(EntityChangedEvent.of(this, user, change));
 		saveListCars(user, cars);
 		user.setCars(cars);
 		return user;
 	}
 
-	private void validateEmailDuplicate(User user) {
+	/*
+	 ****
+	 * Cadastro em lote. Emails, logins e placas são verificados com poucas consultas
+	 * (IN) e os inserts são agrupados pelo batching JDBC do Hibernate. Itens
+	 * rejeitados não impedem o cadastro dos demais; apenas novos usuários e novos
+	 * carros são gravados. Os hashes das senhas são feitos em paralelo, fora da transação.
+	 */
+	public List<BatchItemResult<User>> saveAll(List<User> users) {
+		List<String> passwords = new ArrayList<>(users.size());
+		users.forEach(user -> passwords.add(user.getPassword()));
+		List<String> hashes = passwordHasher.hashAll(passwords);
+		for (int i = 0; i < users.size(); i++) {
+			users.get(i).setPassword(hashes.get(i));
+		}
+		return transactionTemplate.execute(status -> persistAll(users));
+	}
 
-		// Validação para novo usuário
-		if (user.getId() == null) {
-			if (userRepository.findByEmail(user.getEmail()).isPresent())
-				throw new EmailDuplicateException();
+	private List<BatchItemResult<User>> persistAll(List<User> users) {
+		Set<String> emails = new HashSet<>();
+		Set<String> logins = new HashSet<>();
+		Set<String> plates = new HashSet<>();
+		for (User user : users) {
+			emails.add(user.getEmail());
+			logins.add(user.getLogin());
+			newCars(user).forEach(car -> plates.add(car.getLicensePlate()));
 		}
 
-		// Validação para usuário já cadastrado
-		if (user.getId() != null && user.getEmail() != null) {
-			Optional<User> userSaved = userRepository.findByEmail(user.getEmail());
-			if (userSaved.isPresent()) {
-				if (userSaved.get().getId() != user.getId()) {
-					throw new EmailDuplicateException();
-				}
+		Set<String> emailsInUse = findExisting(emails, userRepository::findExistingEmails);
+		Set<String> loginsInUse = findExisting(logins, userRepository::findExistingLogins);
+		Set<String> platesInUse = findExisting(plates, carRepository::findExistingLicensePlates);
 
+		List<BatchItemResult<User>> results = new ArrayList<>(users.size());
+		List<User> accepted = new ArrayList<>();
+		for (int i = 0; i < users.size(); i++) {
+			User user = users.get(i);
+			RuntimeException rejection = validateBatchItem(user, emailsInUse, loginsInUse, platesInUse);
+			if (rejection == null)
+				rejection = reserveBatchItem(user);
+			if (rejection != null) {
+				results.add(BatchItemResult.rejected(i, user, rejection));
+				continue;
 			}
 
+			// Os valores aceitos passam a contar como em uso para os próximos itens do lote
+			emailsInUse.add(user.getEmail());
+			loginsInUse.add(user.getLogin());
+			newCars(user).forEach(car -> platesInUse.add(car.getLicensePlate()));
+
+			accepted.add(user);
+			results.add(BatchItemResult.accepted(i, user));
 		}
 
+		persistInBatches(accepted);
+		return results;
 	}
 
-	private void validateLoginDuplicate(User user) {
+	private RuntimeException validateBatchItem(User user, Set<String> emailsInUse, Set<String> loginsInUse,
+			Set<String> platesInUse) {
+		if (emailsInUse.contains(user.getEmail()))
+			return new EmailDuplicateException();
+		if (loginsInUse.contains(user.getLogin()))
+			return new LoginDuplicateException();
+
+		Set<String> platesOfUser = new HashSet<>();
+		for (Car car : newCars(user)) {
+			if (platesInUse.contains(car.getLicensePlate()) || !platesOfUser.add(car.getLicensePlate()))
+				return new CarWithLicensePlateDuplicated();
+		}
+		return null;
+	}
 
-		// Validação para novo usuário
-		if (user.getId() == null) {
-			if (userRepository.findByLogin(user.getLogin()).isPresent())
-				throw new LoginDuplicateException();
+	/*
+	 ****
+	 * Reserva email, login e placas do item no UniquenessService, protegendo contra
+	 * cadastros paralelos. Se algum valor já estiver reservado, as reservas do item
+	 * são desfeitas.
+	 */
+	private RuntimeException reserveBatchItem(User user) {
+		List<UniqueValueSet.Reservation> reservations = new ArrayList<>();
+		RuntimeException rejection = reserve(reservations, uniquenessService.tryClaimEmail(user.getEmail()),
+				EmailDuplicateException::new);
+		if (rejection == null)
+			rejection = reserve(reservations, uniquenessService.tryClaimLogin(user.getLogin()),
+					LoginDuplicateException::new);
+		for (Car car : newCars(user)) {
+			if (rejection == null)
+				rejection = reserve(reservations, uniquenessService.tryClaimLicensePlate(car.getLicensePlate()),
+						CarWithLicensePlateDuplicated::new);
 		}
 
-		// Validação para usuário já cadastrado
-		if (user.getId() != null && user.getLogin() != null) {
-			Optional<User> userSaved = userRepository.findByLogin(user.getLogin());
+		if (rejection != null)
+			reservations.forEach(UniqueValueSet.Reservation::release);
+		return rejection;
+	}
+
+	private RuntimeException reserve(List<UniqueValueSet.Reservation> reservations,
+			UniqueValueSet.Reservation reservation, Supplier<RuntimeException> duplicate) {
+		if (reservation == null)
+			return duplicate.get();
+		reservations.add(reservation);
+		return null;
+	}
 
-			if (userSaved.isPresent()) {
-				if (userSaved.get().getId() != user.getId()) {
-					throw new LoginDuplicateException();
-				}
+	private void persistInBatches(List<User> users) {
+		for (int i = 0; i < users.size(); i++) {
+			User user = users.get(i);
+			List<Car> cars = newCars(user);
+			user.setId(null);
+			user.setCars(new ArrayList<>());
+			entityManager.persist(user);
+			searchService.indexUser(user);
+			publisher.publishEvent(EntityChangedEvent.of(this, user, Change.CREATED));
+			for (Car car : cars) {
+				car.setUser(user);
+				entityManager.persist(car);
+				searchService.indexCar(car);
+				publisher.publishEvent(EntityChangedEvent.of(this, car, Change.CREATED));
+			}
+			user.setCars(cars);
+
+			if ((i + 1) % batchSize == 0) {
+				entityManager.flush();
+				entityManager.clear();
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	private List<Car> newCars(User user) {
+		List<Car> cars = new ArrayList<>();
+		if (user.getCars() != null) {
+			for (Car car : user.getCars()) {
+				if (car.getId() == null)
+					cars.add(car);
 			}
 		}
+		return cars;
+	}
+
+	private Set<String> findExisting(Collection<String> values, Function<Collection<String>, Set<String>> query) {
+		Set<String> existing = new HashSet<>();
+		InClauses.chunks(values).forEach(chunk -> existing.addAll(query.apply(chunk)));
+		return existing;
+	}
+
+	private void validateEmailDuplicate(User user) {
+		uniquenessService.claimEmail(user.getEmail(), user.getId());
+	}
 
+	private void validateLoginDuplicate(User user) {
+		uniquenessService.claimLogin(user.getLogin(), user.getId());
 	}
 
 	private void saveListCars(User user, List<Car> cars) {
@@ -92,21 +264,137 @@ public class UserService {
 					validatePlate(car);
 					car.setUser(user);
 					carRepository.saveAndFlush(car);
+					searchService.indexCar(car);
+					publisher.publishEvent(EntityChangedEvent.of(this, car, Change.CREATED));
+					userCarsCache.evict(user.getId());
 				}
 			}
 		}
 	}
 
-	@Transactional
 	public User update(UUID id, User user) {
+		return update(id, user, null);
+	}
+
+	/*
+	 ****
+	 * Atualização condicionada à versão: se expectedVersion não for a versão atual a
+	 * atualização é recusada com ObjectOptimisticLockingFailureException.
+	 */
+	public User update(UUID id, User user, Long expectedVersion) {
+		user.setPassword(passwordToStore(id, user.getPassword()));
+		return transactionTemplate.execute(status -> replace(id, user, expectedVersion));
+	}
+
+	private User replace(UUID id, User user, Long expectedVersion) {
 		Optional<User> userSaved = findById(id);
 		if (userSaved.isPresent()) {
-			BeanUtils.copyProperties(user, userSaved.get(), "id");
-			return this.save(userSaved.get());
+			Versions.check(User.class, id, expectedVersion, userSaved.get().getVersion());
+			String previousEmail = userSaved.get().getEmail();
+			String previousLogin = userSaved.get().getLogin();
+			BeanUtils.copyProperties(user, userSaved.get(), "id", "version");
+			User updated = persist(userSaved.get());
+
+			if (!Objects.equals(previousEmail, updated.getEmail()))
+				uniquenessService.forgetEmail(previousEmail);
+			if (!Objects.equals(previousLogin, updated.getLogin()))
+				uniquenessService.forgetLogin(previousLogin);
+			return updated;
 		} else
 			return null;
 	}
 
+	/*
+	 ****
+	 * Atualização parcial (JSON Merge Patch). Só os campos que mudaram são gravados e
+	 * só eles passam pela verificação de unicidade; os carros não são tocados.
+	 */
+	public User patch(UUID id, JsonNode patch, Long expectedVersion) {
+		JsonNode password = patch == null ? null : patch.get("password");
+		if (password != null && password.isTextual()) {
+			ObjectNode hashed = ((ObjectNode) patch).deepCopy();
+			hashed.put("password", passwordToStore(id, password.asText()));
+			patch = hashed;
+		}
+		JsonNode resolved = patch;
+		return transactionTemplate.execute(status -> applyPatch(id, resolved, expectedVersion));
+	}
+
+	private User applyPatch(UUID id, JsonNode patch, Long expectedVersion) {
+		User user = findById(id).get();
+		Versions.check(User.class, id, expectedVersion, user.getVersion());
+
+		Map<String, Object> changes = mergePatcher.changes(patch, user, User.class, "id", "version", "cars");
+		if (changes.isEmpty())
+			return user;
+
+		if (changes.containsKey("email")) {
+			uniquenessService.claimEmail((String) changes.get("email"), id);
+			uniquenessService.forgetEmail(user.getEmail());
+		}
+		if (changes.containsKey("login")) {
+			uniquenessService.claimLogin((String) changes.get("login"), id);
+			uniquenessService.forgetLogin(user.getLogin());
+		}
+		mergePatcher.apply(user, changes);
+
+		if (changes.containsKey("firstName"))
+			searchService.indexUser(user);
+		publisher.publishEvent(EntityChangedEvent.of(this, user, Change.UPDATED));
+		return user;
+	}
+
+	/*
+	 ****
+	 * Senha a gravar numa alteração: o hash atual quando a senha não veio ou é a mesma, senão
+	 * o hash da nova. Roda fora da transação; o usuário normalmente vem do cache de segundo nível.
+	 */
+	private String passwordToStore(UUID id, String rawPassword) {
+		String current = findById(id).get().getPassword();
+		if (rawPassword == null || rawPassword.equals(current) || passwordHasher.matches(rawPassword, current))
+			return current;
+		return passwordHasher.hash(rawPassword);
+	}
+
+	/*
+	 ****
+	 * Confere login e senha. Um hash gerado com custo menor que o configurado é refeito
+	 * agora que a senha é conhecida.
+	 */
+	public Optional<User> authenticate(String login, String rawPassword) {
+		Optional<User> user = userRepository.findByLogin(login);
+		if (!passwordHasher.matches(rawPassword, user.map(User::getPassword).orElse(null)))
+			return Optional.empty();
+		if (!passwordHasher.needsRehash(user.get().getPassword()))
+			return user;
+
+		String hash = passwordHasher.hash(rawPassword);
+		return Optional.of(transactionTemplate.execute(status -> {
+			User found = findById(user.get().getId()).get();
+			found.setPassword(hash);
+			publisher.publishEvent(EntityChangedEvent.of(this, found, Change.UPDATED));
+			return found;
+		}));
+	}
+
+	/*
+	 ****
+	 * Percorre todos os usuários por um cursor JDBC. O contexto de persistência é
+	 * limpo a cada bloco lido para que a memória não cresça com o tamanho da tabela.
+	 */
+	@Transactional(readOnly = true)
+	public void exportAll(Consumer<User> consumer) {
+		try (Stream<User> users = userRepository.streamAll()) {
+			int[] read = {0};
+			users.forEach(user -> {
+				consumer.accept(user);
+				if (++read[0] % UserRepository.EXPORT_FETCH_SIZE == 0) {
+					entityManager.clear();
+				}
+			});
+		}
+	}
+
 	/*
 	 ****
 	 * Verificação para saber se o id corresponde a um carro no banco de dados. Se
@@ -122,32 +410,60 @@ public class UserService {
 		return carSaved;
 	}
 
+	/*
+	 ****
+	 * Usuário com os carros. Se o usuário já está no cache de segundo nível, a coleção
+	 * também é montada a partir do cache; senão, uma única consulta traz os dois.
+	 */
+	@Transactional(readOnly = true)
+	public Optional<User> findWithCars(UUID id) {
+		if (!entityManager.getEntityManagerFactory().getCache().contains(User.class, id))
+			return userRepository.findWithCarsById(id);
+
+		Optional<User> user = userRepository.findById(id);
+		user.ifPresent(found -> Hibernate.initialize(found.getCars()));
+		return user;
+	}
+
+	/*
+	 ****
+	 * Os carros do usuário são desassociados com um único UPDATE, sem carregar as
+	 * entidades. Para os eventos, os carros alterados são relidos depois do UPDATE (uma
+	 * consulta por bloco de ids), com a versão gravada pelo banco.
+	 */
+	@Transactional
 	public void delete(UUID id) {
-		Optional<User> userSaved = findById(id);
-		userSaved.ifPresent(user -> user.getCars().forEach(car -> car.setUser(null)));
+		User user = userRepository.findById(id).orElseThrow(() -> new EmptyResultDataAccessException(1));
+		List<UUID> carIds = carRepository.findIdsByUserId(id);
+		carRepository.removeOwnerFromAll(id);
 		userRepository.deleteById(id);
+		searchService.removeUser(id);
+		userCarsCache.evict(id);
+
+		for (List<UUID> chunk : InClauses.chunks(carIds)) {
+			for (Car car : carRepository.findWithUserByIdIn(chunk)) {
+				publisher.publishEvent(EntityChangedEvent.of(this, car, Change.UPDATED));
+			}
+		}
+		publisher.publishEvent(EntityChangedEvent.of(this, user, Change.DELETED));
+		uniquenessService.forgetEmail(user.getEmail());
+		uniquenessService.forgetLogin(user.getLogin());
 	}
 
+	@Transactional
 	public void disassociateCar(UUID userId, UUID carId) {
 		Optional<Car> car = carRepository.findByUserIdAndId(userId, carId);
 
 		if (car.isPresent()) {
 			car.get().setUser(null);
 			carRepository.save(car.get());
+			userCarsCache.evict(userId);
+			publisher.publishEvent(EntityChangedEvent.of(this, car.get(), Change.UPDATED));
 		}
 	}
 
 	private void validatePlate(Car car) {
-		Car carWithLicensePlateDuplicated = carRepository.findByLicensePlate(car.getLicensePlate());
-
-		/*
-		 ****
-		 * Se a placa estiver em uso, então é lançada uma exceção que será tratada por
-		 * CustomExceptionHandler
-		 */
-		if (carWithLicensePlateDuplicated != null && carWithLicensePlateDuplicated.getId() != car.getId()) {
-			throw new CarWithLicensePlateDuplicated();
-		}
+		uniquenessService.claimLicensePlate(car.getLicensePlate(), car.getId());
 	}
 
 }
@@ -0,0 +1,110 @@
+package com.pitang.service.credential;
+
+import com.pitang.config.property.DesafioApiProperty;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ ****
+ * Hash de senhas com bcrypt. Cada hash custa dezenas de milissegundos de CPU, então roda
+ * num pool próprio e limitado: no máximo `threads` hashes ao mesmo tempo, não importa
+ * quantas requisições cheguem. Com a fila cheia o hash roda na thread de quem chamou.
+ * O pool limita o uso de CPU, não libera a thread da requisição: hash e matches esperam o
+ * resultado (join), então cadastro e login seguram a thread do Tomcat pelo tempo do hash
+ * e continuam contando no limite de requisições em andamento (RateLimitFilter).
+ */
+@Component
+public class PasswordHasher {
+
+    private static final Pattern BCRYPT = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}$");
+
+    private final int cost;
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolTaskExecutor executor;
+    private final String unknownUserHash;
+
+    @Autowired
+    public PasswordHasher(DesafioApiProperty property, MeterRegistry registry) {
+        DesafioApiProperty.Password password = property.getPassword();
+        int threads = password.getThreads() > 0 ? password.getThreads() : Runtime.getRuntime().availableProcessors();
+        this.cost = password.getCost();
+        this.encoder = new BCryptPasswordEncoder(cost);
+        this.executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("password-hash-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(password.getQueueCapacity());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), "password-hash", Tags.empty()).bindTo(registry);
+        this.unknownUserHash = encoder.encode("unknown-user");
+    }
+
+    public String hash(String rawPassword) {
+        return hashAsync(rawPassword).join();
+    }
+
+    public CompletableFuture<String> hashAsync(String rawPassword) {
+        if (rawPassword == null)
+            return CompletableFuture.completedFuture(null);
+        return CompletableFuture.supplyAsync(() -> encoder.encode(rawPassword), executor);
+    }
+
+    /*
+     ****
+     * Hash de várias senhas em paralelo no pool, na ordem recebida.
+     */
+    public List<String> hashAll(List<String> rawPasswords) {
+        List<CompletableFuture<String>> hashes = new ArrayList<>(rawPasswords.size());
+        rawPasswords.forEach(rawPassword -> hashes.add(hashAsync(rawPassword)));
+        List<String> result = new ArrayList<>(hashes.size());
+        hashes.forEach(hash -> result.add(hash.join()));
+        return result;
+    }
+
+    /*
+     ****
+     * Sem hash (usuário inexistente) a comparação é feita mesmo assim contra um hash qualquer:
+     * o tempo de resposta não revela se o login existe.
+     */
+    public boolean matches(String rawPassword, String hash) {
+        if (rawPassword == null)
+            return false;
+        boolean known = isHash(hash);
+        String compared = known ? hash : unknownUserHash;
+        boolean matches = CompletableFuture.supplyAsync(() -> encoder.matches(rawPassword, compared), executor).join();
+        return known && matches;
+    }
+
+    /*
+     ****
+     * O hash foi gerado com custo menor que o configurado e deve ser refeito quando a senha
+     * for conhecida (no login).
+     */
+    public boolean needsRehash(String hash) {
+        Matcher matcher = BCRYPT.matcher(hash == null ? "" : hash);
+        return !matcher.matches() || Integer.parseInt(matcher.group(1)) < cost;
+    }
+
+    public boolean isHash(String value) {
+        return value != null && BCRYPT.matcher(value).matches();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,5 @@
+package com.pitang.service.exception;
+
+public class CarOwnerNotFoundException extends RuntimeException {
+
+}
@@ -0,0 +1,12 @@
+package com.pitang.service.exception;
+
+public class InvalidPatchException extends RuntimeException {
+
+    public InvalidPatchException(String message) {
+        super(message);
+    }
+
+    public InvalidPatchException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,26 @@
+package com.pitang.service.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/*
+ ****
+ * Divide listas de valores para cláusulas IN em blocos, para não ultrapassar o limite
+ * de parâmetros do banco.
+ */
+public final class InClauses {
+
+    public static final int LIMIT = 1000;
+
+    private InClauses() {}
+
+    public static <T> List<List<T>> chunks(Collection<T> values) {
+        List<T> pending = new ArrayList<>(values);
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < pending.size(); from += LIMIT) {
+            chunks.add(pending.subList(from, Math.min(from + LIMIT, pending.size())));
+        }
+        return chunks;
+    }
+}
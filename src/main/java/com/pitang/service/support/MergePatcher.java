@@ -0,0 +1,86 @@
+package com.pitang.service.support;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pitang.service.exception.InvalidPatchException;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/*
+ ****
+ * JSON Merge Patch (RFC 7386) para entidades de campos simples: campo presente
+ * substitui o valor, null apaga, campo ausente não muda. O patch é aplicado numa
+ * cópia, que é validada; só então as diferenças são devolvidas para o serviço
+ * conferir unicidade e gravar apenas o que mudou.
+ */
+@Component
+public class MergePatcher {
+
+    public static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @Autowired
+    public MergePatcher(ObjectMapper objectMapper, Validator validator) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+    }
+
+    /*
+     ****
+     * Campos que o patch muda de fato, com os novos valores. Campos em readOnly não
+     * podem aparecer no patch.
+     */
+    public <T> Map<String, Object> changes(JsonNode patch, T current, Class<T> type, String... readOnly) {
+        if (patch == null || !patch.isObject())
+            throw new InvalidPatchException("Merge patch must be a JSON object");
+        for (Iterator<String> names = patch.fieldNames(); names.hasNext(); ) {
+            String name = names.next();
+            if (Arrays.asList(readOnly).contains(name))
+                throw new InvalidPatchException("Field '" + name + "' cannot be patched");
+        }
+
+        T patched = BeanUtils.instantiateClass(type);
+        BeanUtils.copyProperties(current, patched);
+        try {
+            objectMapper.readerForUpdating(patched).readValue(patch);
+        } catch (IOException e) {
+            throw new InvalidPatchException("Invalid merge patch", e);
+        }
+
+        Set<ConstraintViolation<T>> violations = validator.validate(patched);
+        if (!violations.isEmpty())
+            throw new ConstraintViolationException(violations);
+
+        BeanWrapper before = new BeanWrapperImpl(current);
+        BeanWrapper after = new BeanWrapperImpl(patched);
+        Map<String, Object> changes = new LinkedHashMap<>();
+        for (Iterator<String> names = patch.fieldNames(); names.hasNext(); ) {
+            String name = names.next();
+            Object value = after.getPropertyValue(name);
+            if (!Objects.equals(before.getPropertyValue(name), value))
+                changes.put(name, value);
+        }
+        return changes;
+    }
+
+    public void apply(Object target, Map<String, Object> changes) {
+        BeanWrapper wrapper = new BeanWrapperImpl(target);
+        changes.forEach(wrapper::setPropertyValue);
+    }
+}
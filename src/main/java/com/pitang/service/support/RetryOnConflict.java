@@ -0,0 +1,69 @@
+package com.pitang.service.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/*
+ ****
+ * Para chamadas internas que podem simplesmente repetir a alteração quando outra
+ * transação atualizou a mesma entidade antes. Cada tentativa roda numa transação
+ * nova e deve ler a entidade de novo; por isso não pode ser chamado dentro de uma
+ * transação já aberta.
+ */
+@Component
+public class RetryOnConflict {
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 5;
+    private static final long MAX_BACKOFF_MS = 50;
+
+    private final TransactionTemplate transactionTemplate;
+    private final Counter retries;
+
+    @Autowired
+    public RetryOnConflict(PlatformTransactionManager transactionManager, MeterRegistry registry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retries = registry.counter("desafio.optimistic-lock.retries");
+    }
+
+    public <T> T execute(Supplier<T> work) {
+        return execute(DEFAULT_MAX_ATTEMPTS, work);
+    }
+
+    public <T> T execute(int maxAttempts, Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive())
+            throw new IllegalStateException("RetryOnConflict must be called outside a transaction");
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts)
+                    throw e;
+                retries.increment();
+                backoff(attempt, e);
+            }
+        }
+    }
+
+    /*
+     * Espera aleatória e crescente para que as transações em conflito não colidam de novo.
+     */
+    private static void backoff(int attempt, OptimisticLockingFailureException conflict) {
+        long bound = Math.min(MAX_BACKOFF_MS, 1L << attempt);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.pitang.service.support;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Consumer;
+
+/*
+ ****
+ * Ações que só podem acontecer depois que a transação corrente termina. Sem transação
+ * ativa a ação roda na hora, como se o commit já tivesse acontecido.
+ */
+public final class TransactionHooks {
+
+    private TransactionHooks() {}
+
+    public static void afterCommit(Runnable action) {
+        afterCompletion(committed -> {
+            if (committed)
+                action.run();
+        });
+    }
+
+    public static void afterCompletion(Consumer<Boolean> action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                action.accept(status == TransactionSynchronization.STATUS_COMMITTED);
+            }
+        });
+    }
+}
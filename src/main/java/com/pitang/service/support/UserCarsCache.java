@@ -0,0 +1,48 @@
+package com.pitang.service.support;
+
+import com.pitang.model.Car;
+import com.pitang.model.User;
+import org.hibernate.Cache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.UUID;
+
+/*
+ ****
+ * A coleção User.cars é o lado inverso da associação: o Hibernate não atualiza o
+ * cache da coleção quando Car.user muda. Quem troca o dono de um carro precisa
+ * remover a coleção do(s) usuário(s) envolvido(s) do cache de segundo nível.
+ */
+@Component
+public class UserCarsCache {
+
+    private static final String ROLE = User.class.getName() + ".cars";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    public UserCarsCache(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /*
+     ****
+     * Remove só depois do commit, quando o Hibernate já liberou o soft lock da entrada;
+     * remover antes disso faz o Hibernate registrar a entrada como expirada. Não há
+     * remoção imediata: sem transação ativa, TransactionHooks executa na hora.
+     */
+    public void evict(UUID... userIds) {
+        Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+        for (UUID userId : userIds) {
+            if (userId != null) {
+                TransactionHooks.afterCommit(() -> cache.evictCollectionData(ROLE, userId));
+            }
+        }
+    }
+
+    public static UUID ownerOf(Car car) {
+        return car.getUser() == null ? null : car.getUser().getId();
+    }
+}
@@ -0,0 +1,22 @@
+package com.pitang.service.support;
+
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/*
+ ****
+ * Compara a versão esperada pelo cliente (If-Match) com a versão atual da entidade.
+ * Sem versão esperada a atualização segue e só o @Version do Hibernate protege
+ * contra escritas concorrentes entre a leitura e o flush.
+ */
+public final class Versions {
+
+    private Versions() {}
+
+    public static void check(Class<?> type, UUID id, Long expected, Long current) {
+        if (expected != null && !Objects.equals(expected, current))
+            throw new ObjectOptimisticLockingFailureException(type, id);
+    }
+}
@@ -0,0 +1,80 @@
+package com.pitang.service.uniqueness;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/*
+ ****
+ * Conjunto de valores únicos (email, login, placa) mantido em memória.
+ *
+ * Um valor ausente do conjunto está livre e é reservado sem ir ao banco. Um valor
+ * presente é confirmado no banco, que continua sendo a autoridade final junto com a
+ * constraint unique. Enquanto uma transação segura a reserva, nenhuma outra consegue
+ * reservar o mesmo valor, então dois cadastros paralelos nunca são aceitos juntos.
+ */
+public class UniqueValueSet {
+
+    private final Set<String> taken = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<String, Reservation> reserved = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    /*
+     * Devolve null quando o valor já está em uso ou reservado por outra transação.
+     */
+    public Reservation reserve(String value, Predicate<String> existsInDatabase) {
+        Reservation reservation = new Reservation(value);
+        if (reserved.putIfAbsent(value, reservation) != null)
+            return null;
+
+        if ((!loaded || taken.contains(value)) && existsInDatabase.test(value)) {
+            reserved.remove(value, reservation);
+            taken.add(value);
+            return null;
+        }
+        return reservation;
+    }
+
+    public void load(String value) {
+        if (value != null)
+            taken.add(value);
+    }
+
+    public void markLoaded() {
+        loaded = true;
+    }
+
+    public void forget(String value) {
+        if (value != null)
+            taken.remove(value);
+    }
+
+    public class Reservation {
+
+        private final String value;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private Reservation(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public void commit() {
+            if (done.compareAndSet(false, true)) {
+                taken.add(value);
+                reserved.remove(value, this);
+            }
+        }
+
+        public void release() {
+            if (done.compareAndSet(false, true)) {
+                reserved.remove(value, this);
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.pitang.service.uniqueness;
+
+import com.pitang.model.Car;
+import com.pitang.repository.CarRepository;
+import com.pitang.repository.UserRepository;
+import com.pitang.service.exception.CarWithLicensePlateDuplicated;
+import com.pitang.service.exception.EmailDuplicateException;
+import com.pitang.service.exception.LoginDuplicateException;
+import com.pitang.service.support.TransactionHooks;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/*
+ ****
+ * Verificação de email, login e placa em uso sem consultar o banco quando o valor
+ * certamente está livre. As reservas feitas durante uma transação viram "em uso" no
+ * commit e são liberadas no rollback.
+ */
+@Service
+public class UniquenessService {
+
+    private final UniqueValueSet emails = new UniqueValueSet();
+    private final UniqueValueSet logins = new UniqueValueSet();
+    private final UniqueValueSet licensePlates = new UniqueValueSet();
+
+    private final UserRepository userRepository;
+    private final CarRepository carRepository;
+
+    @Autowired
+    public UniquenessService(UserRepository userRepository, CarRepository carRepository) {
+        this.userRepository = userRepository;
+        this.carRepository = carRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        try (Stream<Object[]> rows = userRepository.streamEmailsAndLogins()) {
+            rows.forEach(row -> {
+                emails.load((String) row[0]);
+                logins.load((String) row[1]);
+            });
+        }
+        try (Stream<String> rows = carRepository.streamLicensePlates()) {
+            rows.forEach(licensePlates::load);
+        }
+        emails.markLoaded();
+        logins.markLoaded();
+        licensePlates.markLoaded();
+    }
+
+    public void claimEmail(String email, UUID userId) {
+        claim(emails, email, emailOwnedByOther(userId), EmailDuplicateException::new);
+    }
+
+    public void claimLogin(String login, UUID userId) {
+        claim(logins, login, loginOwnedByOther(userId), LoginDuplicateException::new);
+    }
+
+    public void claimLicensePlate(String licensePlate, UUID carId) {
+        claim(licensePlates, licensePlate, licensePlateOwnedByOther(carId), CarWithLicensePlateDuplicated::new);
+    }
+
+    /*
+     * Variantes para o cadastro em lote: devolvem null em vez de lançar exceção, e a
+     * reserva pode ser desfeita se outro valor do mesmo item for rejeitado.
+     */
+    public UniqueValueSet.Reservation tryClaimEmail(String email) {
+        return tryClaim(emails, email, emailOwnedByOther(null));
+    }
+
+    public UniqueValueSet.Reservation tryClaimLogin(String login) {
+        return tryClaim(logins, login, loginOwnedByOther(null));
+    }
+
+    public UniqueValueSet.Reservation tryClaimLicensePlate(String licensePlate) {
+        return tryClaim(licensePlates, licensePlate, licensePlateOwnedByOther(null));
+    }
+
+    public void forgetEmail(String email) {
+        TransactionHooks.afterCommit(() -> emails.forget(email));
+    }
+
+    public void forgetLogin(String login) {
+        TransactionHooks.afterCommit(() -> logins.forget(login));
+    }
+
+    public void forgetLicensePlate(String licensePlate) {
+        TransactionHooks.afterCommit(() -> licensePlates.forget(licensePlate));
+    }
+
+    private void claim(UniqueValueSet values, String value, Predicate<String> existsInDatabase,
+                       Supplier<RuntimeException> duplicate) {
+        if (value != null && tryClaim(values, value, existsInDatabase) == null)
+            throw duplicate.get();
+    }
+
+    private UniqueValueSet.Reservation tryClaim(UniqueValueSet values, String value,
+                                                Predicate<String> existsInDatabase) {
+        UniqueValueSet.Reservation reservation = values.reserve(value, existsInDatabase);
+        if (reservation != null) {
+            TransactionHooks.afterCompletion(committed -> {
+                if (committed)
+                    reservation.commit();
+                else
+                    reservation.release();
+            });
+        }
+        return reservation;
+    }
+
+    private Predicate<String> emailOwnedByOther(UUID userId) {
+        return email -> userRepository.findByEmail(email)
+                .filter(user -> !user.getId().equals(userId))
+                .isPresent();
+    }
+
+    private Predicate<String> loginOwnedByOther(UUID userId) {
+        return login -> userRepository.findByLogin(login)
+                .filter(user -> !user.getId().equals(userId))
+                .isPresent();
+    }
+
+    private Predicate<String> licensePlateOwnedByOther(UUID carId) {
+        return licensePlate -> {
+            Car car = carRepository.findByLicensePlate(licensePlate);
+            return car != null && !car.getId().equals(carId);
+        };
+    }
+}
@@ -0,0 +1,43 @@
+-- Schema equivalente ao que o Hibernate gerava (ddl-auto), com nomes explícitos nas constraints.
+
+create table user (
+    id uuid not null,
+    first_name varchar(255),
+    last_name varchar(255),
+    email varchar(255),
+    birthday date,
+    login varchar(255),
+    password varchar(255),
+    phone varchar(255),
+    version bigint,
+    constraint pk_user primary key (id),
+    constraint uk_user_email unique (email),
+    constraint uk_user_login unique (login)
+);
+
+create table car (
+    id uuid not null,
+    year integer not null check (year >= 1),
+    license_plate varchar(255),
+    model varchar(255),
+    color varchar(255),
+    user_id uuid,
+    version bigint,
+    constraint pk_car primary key (id),
+    constraint uk_car_license_plate unique (license_plate)
+);
+
+create sequence outbox_seq start with 1 increment by 50;
+
+create table outbox_message (
+    id bigint not null,
+    aggregate_type varchar(255) not null,
+    aggregate_id uuid not null,
+    event_type varchar(255) not null,
+    payload clob,
+    created_at timestamp not null,
+    delivered_at timestamp,
+    constraint pk_outbox_message primary key (id)
+);
+
+create index idx_outbox_pending on outbox_message (delivered_at, id);
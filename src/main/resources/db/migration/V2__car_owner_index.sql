@@ -0,0 +1,6 @@
+-- Índice da chave estrangeira car.user_id (carros de um usuário, exclusão e transferência
+-- de carros). Criado antes da constraint, que passa a usá-lo.
+
+create index idx_car_user_id on car (user_id);
+
+alter table car add constraint fk_car_user foreign key (user_id) references user (id);
@@ -0,0 +1,39 @@
+package com.pitang;
+
+import com.pitang.model.Car;
+import com.pitang.model.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/*
+ ****
+ * Usuários e carros válidos para os testes; cada teste ajusta só o que importa para ele.
+ */
+public final class TestFixtures {
+
+    public static final String PASSWORD = "secret";
+
+    private TestFixtures() {}
+
+    public static User user(String login, Car... cars) {
+        User user = new User();
+        user.setFirstName("Test");
+        user.setLastName("User");
+        user.setEmail(login + "@test.com");
+        user.setLogin(login);
+        user.setPassword(PASSWORD);
+        user.setPhone("81999999999");
+        user.setCars(new ArrayList<>(Arrays.asList(cars)));
+        return user;
+    }
+
+    public static Car car(String plate) {
+        Car car = new Car();
+        car.setYear(2019);
+        car.setLicensePlate(plate);
+        car.setModel("Test");
+        car.setColor("Black");
+        return car;
+    }
+}
@@ -0,0 +1,154 @@
+package com.pitang.auth;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pitang.config.property.DesafioApiProperty;
+import com.pitang.event.EntityChangedEvent;
+import com.pitang.model.User;
+import com.pitang.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static com.pitang.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+ ****
+ * Login com token assinado, validação no filtro, logout e expiração.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class AuthenticationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void loginIssuesTokenAcceptedUntilLogout() throws Exception {
+        User user = userService.save(user("auth.logout"));
+
+        mockMvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"login\":\"auth.logout\",\"password\":\"wrong\"}"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$[0].errorCode").value("11"));
+
+        String token = login("auth.logout");
+        mockMvc.perform(get("/users/" + user.getId()).header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/users/" + user.getId()).header(HttpHeaders.AUTHORIZATION, "Bearer " + token + "x"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$[0].errorCode").value("12"));
+
+        mockMvc.perform(post("/auth/logout").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/users/" + user.getId()).header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void deletingUserRevokesItsTokens() throws Exception {
+        User user = userService.save(user("auth.deleted"));
+        String token = login("auth.deleted");
+
+        mockMvc.perform(delete("/users/" + user.getId())).andExpect(status().isNoContent());
+        mockMvc.perform(get("/cars").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void deletedUsersStayRevokedBeyondRevokedCacheSize() {
+        DesafioApiProperty.Auth auth = new DesafioApiProperty.Auth();
+        auth.setSecret("test-secret");
+        auth.setRevokedCacheSize(1);
+        TokenService tokenService = new TokenService(auth, objectMapper, new SimpleMeterRegistry(), new MutableClock());
+        User first = user("auth.revoked");
+        first.setId(UUID.randomUUID());
+        String token = tokenService.issue(first);
+
+        tokenService.on(EntityChangedEvent.of(this, first, EntityChangedEvent.Change.DELETED));
+        for (int i = 0; i < 100; i++) {
+            User other = user("auth.revoked" + i);
+            other.setId(UUID.randomUUID());
+            tokenService.on(EntityChangedEvent.of(this, other, EntityChangedEvent.Change.DELETED));
+        }
+
+        assertThat(tokenService.validate(token)).isEmpty();
+    }
+
+    @Test
+    public void expiredTokenIsRejected() {
+        DesafioApiProperty.Auth auth = new DesafioApiProperty.Auth();
+        auth.setSecret("test-secret");
+        auth.setTtlSeconds(60);
+        MutableClock clock = new MutableClock();
+        TokenService tokenService = new TokenService(auth, objectMapper, new SimpleMeterRegistry(), clock);
+        User user = user("auth.expired");
+        user.setId(UUID.randomUUID());
+
+        String token = tokenService.issue(user);
+        assertThat(tokenService.validate(token)).hasValueSatisfying(
+                principal -> assertThat(principal.getLogin()).isEqualTo("auth.expired"));
+
+        clock.advance(Duration.ofSeconds(61));
+        assertThat(tokenService.validate(token)).isEmpty();
+    }
+
+    private String login(String login) throws Exception {
+        String body = mockMvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"login\":\"" + login + "\",\"password\":\"secret\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tokenType").value("Bearer"))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("token").asText();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.now();
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
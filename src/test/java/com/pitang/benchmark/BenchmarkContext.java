@@ -0,0 +1,109 @@
+package com.pitang.benchmark;
+
+import com.pitang.DesafioPitangApplication;
+import com.pitang.TestFixtures;
+import com.pitang.model.Car;
+import com.pitang.model.User;
+import com.pitang.service.UserService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/*
+ ****
+ * Sobe a aplicação sem servidor web, com um H2 em memória exclusivo para o benchmark,
+ * e gera a massa de dados usada pelos benchmarks (a partir de TestFixtures, com logins,
+ * placas e nomes únicos).
+ */
+public final class BenchmarkContext {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+    private static final int SEED_CHUNK = 1000;
+
+    private BenchmarkContext() {}
+
+    public static ConfigurableApplicationContext start(String... properties) {
+        return run(WebApplicationType.NONE, properties);
+    }
+
+    /*
+     ****
+     * Sobe também o Tomcat numa porta livre (local.server.port), para testes de carga HTTP.
+     */
+    public static ConfigurableApplicationContext startWeb(String... properties) {
+        List<String> web = new ArrayList<>();
+        web.add("server.port=0");
+        web.addAll(Arrays.asList(properties));
+        return run(WebApplicationType.SERVLET, web.toArray(new String[0]));
+    }
+
+    /*
+     ****
+     * As propriedades vão como argumentos de linha de comando: propriedades padrão do
+     * SpringApplicationBuilder perdem para o application.properties. Chaves repetidas
+     * seriam concatenadas com vírgula, por isso a última ocorrência substitui a padrão.
+     * O bcrypt fica no custo mínimo para não dominar os benchmarks de cadastro;
+     * PasswordHashingBenchmark mede o custo do hash.
+     */
+    private static ConfigurableApplicationContext run(WebApplicationType type, String... properties) {
+        Map<String, String> args = new LinkedHashMap<>();
+        Stream.concat(Stream.of(
+                "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "spring.jpa.show-sql=false",
+                "spring.main.banner-mode=off",
+                "desafio-pitang.outbox.relay-enabled=false",
+                "desafio-pitang.password.cost=4",
+                "logging.level.root=WARN"), Arrays.stream(properties))
+                .forEach(property -> args.put(property.substring(0, property.indexOf('=')), "--" + property));
+        return new SpringApplicationBuilder(DesafioPitangApplication.class)
+                .web(type)
+                .run(args.values().toArray(new String[0]));
+    }
+
+    public static void seed(ConfigurableApplicationContext context, int users, int carsPerUser) {
+        UserService userService = context.getBean(UserService.class);
+        for (int seeded = 0; seeded < users; seeded += SEED_CHUNK) {
+            userService.saveAll(newUsers(Math.min(SEED_CHUNK, users - seeded), carsPerUser));
+        }
+    }
+
+    public static List<User> newUsers(int users, int carsPerUser) {
+        List<User> batch = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            User user = newUser();
+            user.setCars(newCars(carsPerUser));
+            batch.add(user);
+        }
+        return batch;
+    }
+
+    public static User newUser() {
+        long n = SEQUENCE.incrementAndGet();
+        User user = TestFixtures.user("user" + n);
+        user.setFirstName("User" + n);
+        return user;
+    }
+
+    public static List<Car> newCars(int cars) {
+        List<Car> list = new ArrayList<>(cars);
+        for (int c = 0; c < cars; c++) {
+            list.add(newCar());
+        }
+        return list;
+    }
+
+    public static Car newCar() {
+        long n = SEQUENCE.incrementAndGet();
+        Car car = TestFixtures.car("PLT-" + n);
+        car.setModel("Model " + (n % 100));
+        return car;
+    }
+}
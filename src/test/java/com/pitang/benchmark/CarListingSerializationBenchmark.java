@@ -0,0 +1,115 @@
+package com.pitang.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pitang.mapper.CarMapper;
+import com.pitang.model.Car;
+import com.pitang.model.User;
+import com.pitang.model.dto.CarDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ ****
+ * Página de carros da busca por modelo: entidade Car (usuário aninhado com os carros dele e
+ * @JsonIdentityInfo) x visão compacta (CarDTO, só userId), sem e com gzip. Os tamanhos em
+ * bytes de cada formato são impressos no setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CarListingSerializationBenchmark {
+
+    @Param({"20", "200"})
+    public int pageSize;
+
+    @Param({"2"})
+    public int carsPerUser;
+
+    private ConfigurableApplicationContext context;
+    private ObjectMapper objectMapper;
+    private final CarMapper carMapper = new CarMapper();
+    private Page<Car> page;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = BenchmarkContext.start();
+        objectMapper = context.getBean(ObjectMapper.class);
+
+        List<Car> cars = new ArrayList<>(pageSize);
+        while (cars.size() < pageSize) {
+            User user = BenchmarkContext.newUser();
+            user.setId(UUID.randomUUID());
+            List<Car> userCars = BenchmarkContext.newCars(carsPerUser);
+            for (Car car : userCars) {
+                car.setId(UUID.randomUUID());
+                car.setUser(user);
+            }
+            user.setCars(userCars);
+            cars.addAll(userCars);
+        }
+        page = new PageImpl<>(cars.subList(0, pageSize), PageRequest.of(0, pageSize), 10_000);
+
+        System.out.printf("%nbytes: full=%d full.gz=%d compact=%d compact.gz=%d%n",
+                full().length, gzip(full()).length, compact().length, gzip(compact()).length);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] full() throws IOException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] compact() throws IOException {
+        Page<CarDTO> dtos = page.map(carMapper::toDTO);
+        return objectMapper.writeValueAsBytes(dtos);
+    }
+
+    @Benchmark
+    public byte[] fullGzip() throws IOException {
+        return gzip(full());
+    }
+
+    @Benchmark
+    public byte[] compactGzip() throws IOException {
+        return gzip(compact());
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+}
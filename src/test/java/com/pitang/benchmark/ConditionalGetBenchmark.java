@@ -0,0 +1,89 @@
+package com.pitang.benchmark;
+
+import com.pitang.controller.support.RepresentationCache;
+import com.pitang.model.User;
+import com.pitang.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/*
+ ****
+ * GET /users/{id} (usuário com N carros) por HTTP: montando a resposta a cada chamada,
+ * servindo o JSON do RepresentationCache e revalidando com If-None-Match (304).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConditionalGetBenchmark {
+
+    @Param({"2", "50"})
+    public int carsPerUser;
+
+    private ConfigurableApplicationContext context;
+    private RepresentationCache representationCache;
+    private HttpClient client;
+    private UUID userId;
+    private HttpRequest get;
+    private HttpRequest revalidate;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkContext.startWeb();
+        BenchmarkContext.seed(context, 10, carsPerUser);
+        representationCache = context.getBean(RepresentationCache.class);
+        List<User> users = context.getBean(UserRepository.class).findAllByOrderByIdAsc(PageRequest.of(0, 1));
+        userId = users.get(0).getId();
+
+        URI uri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                + "/api/users/" + userId);
+        client = HttpClient.newHttpClient();
+        get = HttpRequest.newBuilder(uri).GET().build();
+        String etag = client.send(get, HttpResponse.BodyHandlers.discarding()).headers().firstValue("ETag").get();
+        revalidate = HttpRequest.newBuilder(uri).header("If-None-Match", etag).GET().build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] uncached() throws Exception {
+        representationCache.evict(RepresentationCache.key(RepresentationCache.USER, userId));
+        return client.send(get, HttpResponse.BodyHandlers.ofByteArray()).body();
+    }
+
+    @Benchmark
+    public byte[] cached() throws Exception {
+        return client.send(get, HttpResponse.BodyHandlers.ofByteArray()).body();
+    }
+
+    @Benchmark
+    public int notModified() throws Exception {
+        return client.send(revalidate, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
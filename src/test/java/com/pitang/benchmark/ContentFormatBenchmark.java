@@ -0,0 +1,112 @@
+package com.pitang.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.pitang.controller.support.ContentFormats;
+import com.pitang.mapper.CarMapper;
+import com.pitang.mapper.UserMapper;
+import com.pitang.model.User;
+import com.pitang.model.dto.UserDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/*
+ ****
+ * Ida e volta de uma página de UserDTO em JSON, CBOR e Smile: encode (como o servidor
+ * responde) e decode (como o serviço cliente lê). O tamanho de cada formato é impresso no
+ * setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContentFormatBenchmark {
+
+    @Param({"20", "200", "2000"})
+    public int pageSize;
+
+    @Param({"application/json", "application/cbor", "application/x-jackson-smile"})
+    public String format;
+
+    private ConfigurableApplicationContext context;
+    private ObjectMapper mapper;
+    private ObjectReader reader;
+    private Page<UserDTO> page;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = BenchmarkContext.start();
+        ContentFormats formats = context.getBean(ContentFormats.class);
+        MediaType type = formats.negotiate(format);
+        mapper = formats.mapper(type);
+        reader = mapper.readerFor(PageBody.class);
+
+        UserMapper userMapper = new UserMapper(new CarMapper());
+        List<UserDTO> users = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            User user = BenchmarkContext.newUser();
+            user.setId(UUID.randomUUID());
+            user.setBirthday(new Date());
+            users.add(userMapper.toDTO(user));
+        }
+        page = new PageImpl<>(users, PageRequest.of(0, pageSize), 100_000);
+        encoded = encode();
+        System.out.printf("%n%s: %d bytes%n", type, encoded.length);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return mapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public PageBody decode() throws IOException {
+        return reader.readValue(encoded);
+    }
+
+    @Benchmark
+    public PageBody roundTrip() throws IOException {
+        return reader.readValue(encode());
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class PageBody {
+        public List<UserDTO> content;
+        public long totalElements;
+        public int totalPages;
+        public int number;
+        public int size;
+    }
+}
@@ -0,0 +1,70 @@
+package com.pitang.benchmark;
+
+import com.pitang.controller.CarController;
+import com.pitang.controller.UserController;
+import com.pitang.model.dto.CarDTO;
+import com.pitang.model.dto.UserDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ ****
+ * GET /users e GET /cars paginados, sobre 10 mil usuários e 20 mil carros.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ControllerPagingBenchmark {
+
+    @Param({"20", "200"})
+    public int pageSize;
+
+    @Param({"0", "40"})
+    public int page;
+
+    private ConfigurableApplicationContext context;
+    private UserController userController;
+    private CarController carController;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        BenchmarkContext.seed(context, 10_000, 2);
+        userController = context.getBean(UserController.class);
+        carController = context.getBean(CarController.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<UserDTO> usersGetAll() {
+        return userController.getAll(PageRequest.of(page, pageSize));
+    }
+
+    @Benchmark
+    public Page<CarDTO> carsGetAll() {
+        return carController.getAll(PageRequest.of(page, pageSize));
+    }
+}
@@ -0,0 +1,134 @@
+package com.pitang.benchmark;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/*
+ ****
+ * Teste de carga HTTP do GET /cars, do GET /reactive/cars e do POST /users com o Tomcat em
+ * threads de plataforma e em threads virtuais (desafio-pitang.execution.mode). Cada modo sobe a aplicação num H2
+ * próprio e dispara N requisições com no máximo C em voo, registrando vazão e latência.
+ *
+ * Uso: LoadTest [modos] [concorrência] [requisições], ex.: LoadTest platform,virtual 1000 20000
+ */
+public final class LoadTest {
+
+    private static final int WARMUP_REQUESTS = 2000;
+
+    private LoadTest() {}
+
+    public static void main(String[] args) throws Exception {
+        /* **** O restart do devtools executaria o main de novo, sem os argumentos */
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        String[] modes = (args.length > 0 ? args[0] : "platform,virtual").split(",");
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+
+        System.out.printf("%-9s %-18s %6s %10s %9s %9s %9s %7s%n",
+                "mode", "endpoint", "conc", "req/s", "p50 ms", "p99 ms", "max ms", "errors");
+        for (String mode : modes) {
+            run(mode.trim(), concurrency, requests);
+        }
+        System.exit(0);
+    }
+
+    private static void run(String mode, int concurrency, int requests) throws Exception {
+        try (ConfigurableApplicationContext context = BenchmarkContext.startWeb(
+                "spring.datasource.url=jdbc:h2:mem:load-" + mode + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "desafio-pitang.execution.mode=" + mode,
+                "server.tomcat.max-connections=" + Math.max(10_000, concurrency * 2),
+                "server.tomcat.accept-count=" + concurrency)) {
+            BenchmarkContext.seed(context, 1000, 2);
+            String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api";
+            HttpClient client = HttpClient.newBuilder()
+                    .executor(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()))
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+
+            IntFunction<HttpRequest> getCars = i -> HttpRequest.newBuilder(URI.create(base + "/cars?page=" + (i % 50) + "&size=20"))
+                    .GET().build();
+            IntFunction<HttpRequest> getReactiveCars = i -> HttpRequest.newBuilder(URI.create(base + "/reactive/cars?limit=20"))
+                    .header("Accept", "application/json")
+                    .GET().build();
+            IntFunction<HttpRequest> postUsers = i -> HttpRequest.newBuilder(URI.create(base + "/users"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(userJson(mode, i)))
+                    .build();
+
+            drive(client, getCars, concurrency, WARMUP_REQUESTS);
+            report(mode, "GET /cars", concurrency, drive(client, getCars, concurrency, requests));
+            drive(client, getReactiveCars, concurrency, WARMUP_REQUESTS);
+            report(mode, "GET /reactive/cars", concurrency, drive(client, getReactiveCars, concurrency, requests));
+            report(mode, "POST /users", concurrency, drive(client, postUsers, concurrency, requests));
+        }
+    }
+
+    private static Result drive(HttpClient client, IntFunction<HttpRequest> requestFactory,
+                                int concurrency, int requests) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(concurrency);
+        Recorder recorder = new Recorder(3);
+        AtomicLong errors = new AtomicLong();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[requests];
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            long sent = System.nanoTime();
+            futures[i] = client.sendAsync(requestFactory.apply(i), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        recorder.recordValue(System.nanoTime() - sent);
+                        if (failure != null || response.statusCode() >= 400) {
+                            errors.incrementAndGet();
+                        }
+                        inFlight.release();
+                    });
+        }
+        CompletableFuture.allOf(futures).exceptionally(failure -> null).join();
+        long elapsed = System.nanoTime() - start;
+        return new Result(recorder.getIntervalHistogram(), requests * 1e9 / elapsed, errors.get());
+    }
+
+    private static void report(String mode, String endpoint, int concurrency, Result result) {
+        System.out.printf(Locale.ROOT, "%-9s %-18s %6d %10.0f %9.2f %9.2f %9.2f %7d%n",
+                mode, endpoint, concurrency, result.throughput,
+                millis(result.latency.getValueAtPercentile(50)),
+                millis(result.latency.getValueAtPercentile(99)),
+                millis(result.latency.getMaxValue()),
+                result.errors);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static String userJson(String mode, int i) {
+        String login = "load-" + mode + "-" + i + "-" + System.nanoTime();
+        return "{\"firstName\":\"Load\",\"lastName\":\"Test\",\"email\":\"" + login + "@load.com\","
+                + "\"login\":\"" + login + "\",\"password\":\"secret\",\"phone\":\"81999999999\"}";
+    }
+
+    private static final class Result {
+        private final Histogram latency;
+        private final double throughput;
+        private final long errors;
+
+        private Result(Histogram latency, double throughput, long errors) {
+            this.latency = latency;
+            this.throughput = throughput;
+            this.errors = errors;
+        }
+    }
+}
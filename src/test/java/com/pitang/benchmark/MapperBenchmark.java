@@ -0,0 +1,90 @@
+package com.pitang.benchmark;
+
+import com.pitang.mapper.CarMapper;
+import com.pitang.mapper.UserMapper;
+import com.pitang.model.Car;
+import com.pitang.model.User;
+import com.pitang.model.dto.CarDTO;
+import com.pitang.model.dto.UserDTO;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/*
+ ****
+ * ModelMapper x mappers escritos à mão na conversão de páginas de User e Car.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({"20", "200", "2000"})
+    public int pageSize;
+
+    private final ModelMapper modelMapper = new ModelMapper();
+    private final CarMapper carMapper = new CarMapper();
+    private final UserMapper userMapper = new UserMapper(carMapper);
+
+    private Page<User> users;
+    private Page<Car> cars;
+
+    @Setup
+    public void setUp() {
+        List<User> userRows = new ArrayList<>(pageSize);
+        List<Car> carRows = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            User user = BenchmarkContext.newUser();
+            user.setId(UUID.randomUUID());
+            user.setBirthday(new Date());
+            userRows.add(user);
+
+            Car car = BenchmarkContext.newCar();
+            car.setId(UUID.randomUUID());
+            car.setUser(user);
+            carRows.add(car);
+        }
+        users = new PageImpl<>(userRows);
+        cars = new PageImpl<>(carRows);
+    }
+
+    @Benchmark
+    public Page<UserDTO> usersModelMapper() {
+        return users.map(user -> modelMapper.map(user, UserDTO.class));
+    }
+
+    @Benchmark
+    public Page<UserDTO> usersMapper() {
+        return users.map(userMapper::toDTO);
+    }
+
+    @Benchmark
+    public Page<CarDTO> carsModelMapper() {
+        return cars.map(car -> modelMapper.map(car, CarDTO.class));
+    }
+
+    @Benchmark
+    public Page<CarDTO> carsMapper() {
+        return cars.map(carMapper::toDTO);
+    }
+}
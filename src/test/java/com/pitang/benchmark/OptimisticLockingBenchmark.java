@@ -0,0 +1,106 @@
+package com.pitang.benchmark;
+
+import com.pitang.model.Car;
+import com.pitang.repository.CarRepository;
+import com.pitang.service.CarService;
+import com.pitang.service.support.RetryOnConflict;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ ****
+ * Vazão de atualizações concorrentes sobre poucos carros (contenção alta) e sobre
+ * muitos (contenção baixa), com e sem RetryOnConflict. Sem retry, os conflitos
+ * aparecem no contador auxiliar "conflicts".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Threads(8)
+@Fork(1)
+public class OptimisticLockingBenchmark {
+
+    @Param({"1", "16", "1024"})
+    public int hotCars;
+
+    private ConfigurableApplicationContext context;
+    private CarRepository carRepository;
+    private RetryOnConflict retryOnConflict;
+    private TransactionTemplate transactionTemplate;
+    private final List<UUID> ids = new ArrayList<>();
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcome {
+        public long conflicts;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        carRepository = context.getBean(CarRepository.class);
+        retryOnConflict = context.getBean(RetryOnConflict.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        CarService carService = context.getBean(CarService.class);
+        for (int i = 0; i < hotCars; i++) {
+            ids.add(carService.save(BenchmarkContext.newCar()).getId());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Car withRetry() {
+        UUID id = pick();
+        return retryOnConflict.execute(100, () -> increment(id));
+    }
+
+    @Benchmark
+    public Car withoutRetry(Outcome outcome) {
+        UUID id = pick();
+        try {
+            return transactionTemplate.execute(status -> increment(id));
+        } catch (OptimisticLockingFailureException e) {
+            outcome.conflicts++;
+            return null;
+        }
+    }
+
+    private Car increment(UUID id) {
+        Car car = carRepository.findById(id).get();
+        car.setYear(car.getYear() + 1);
+        return car;
+    }
+
+    private UUID pick() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+}
@@ -0,0 +1,90 @@
+package com.pitang.benchmark;
+
+import com.pitang.ratelimit.TokenBuckets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+ ****
+ * TokenBuckets (compareAndSet por balde) x um mapa de baldes sincronizado, com 4 threads
+ * disputando uma única chave (pior caso) ou espalhadas em 1024 chaves. O limite é alto o
+ * bastante para nenhuma chamada ser recusada: mede só o custo da contenção.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    private static final int CAPACITY = 1_000_000;
+    private static final int REFILL_PER_SECOND = 1_000_000_000;
+
+    @Param({"1", "1024"})
+    public int keys;
+
+    private String[] clients;
+    private TokenBuckets buckets;
+    private SynchronizedBuckets synchronizedBuckets;
+
+    @Setup
+    public void setUp() {
+        clients = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            clients[i] = "ip:10.0." + (i / 256) + "." + (i % 256);
+        }
+        buckets = new TokenBuckets(16384, CAPACITY, REFILL_PER_SECOND);
+        synchronizedBuckets = new SynchronizedBuckets();
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        int next;
+
+        String key(RateLimiterBenchmark benchmark) {
+            return benchmark.clients[next++ & (benchmark.keys - 1)];
+        }
+    }
+
+    @Benchmark
+    public long lockFree(Client client) {
+        return buckets.tryAcquire(client.key(this), 1);
+    }
+
+    @Benchmark
+    public long synchronizedMap(Client client) {
+        return synchronizedBuckets.tryAcquire(client.key(this), 1);
+    }
+
+    private static final class SynchronizedBuckets {
+
+        private final Map<String, double[]> buckets = new HashMap<>();
+
+        synchronized long tryAcquire(String key, int cost) {
+            long now = System.nanoTime();
+            double[] bucket = buckets.computeIfAbsent(key, k -> new double[]{CAPACITY, now});
+            bucket[0] = Math.min(CAPACITY, bucket[0] + (now - bucket[1]) * REFILL_PER_SECOND / 1e9);
+            bucket[1] = now;
+            if (bucket[0] < cost)
+                return 1;
+            bucket[0] -= cost;
+            return 0;
+        }
+    }
+}
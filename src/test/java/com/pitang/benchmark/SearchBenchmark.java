@@ -0,0 +1,99 @@
+package com.pitang.benchmark;
+
+import com.pitang.model.User;
+import com.pitang.repository.UserRepository;
+import com.pitang.search.SearchService;
+import com.pitang.search.TrigramIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/*
+ ****
+ * Busca por firstName com 1 milhão de usuários: índice de trigramas x LIKE '%termo%'.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class SearchBenchmark {
+
+    private static final int ROWS = 1_000_000;
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 20);
+
+    @Param({"r123456", "ser9999"})
+    public String term;
+
+    private ConfigurableApplicationContext context;
+    private SearchService searchService;
+    private UserRepository userRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        context.getBean(JdbcTemplate.class).update(
+                "insert into user (id, first_name, last_name, email, login, password, phone) "
+                        + "select random_uuid(), 'User' || x, 'Benchmark', 'user' || x || '@benchmark.com', "
+                        + "'user' || x, 'secret', '81999999999' from system_range(1, " + ROWS + ")");
+        searchService = context.getBean(SearchService.class);
+        searchService.rebuild();
+        userRepository = context.getBean(UserRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<User> trigramIndex() {
+        return searchService.findUsersByFirstName(term, FIRST_PAGE);
+    }
+
+    @Benchmark
+    public Page<User> likeQuery() {
+        return userRepository.findAllByFirstNameContainingIgnoreCase(term, FIRST_PAGE);
+    }
+
+    /*
+     * Apenas a busca de candidatos no índice, sem ida ao banco.
+     */
+    @Benchmark
+    public Set<UUID> candidateLookup(IndexOnly state) {
+        return state.index.search(term);
+    }
+
+    @State(Scope.Benchmark)
+    public static class IndexOnly {
+
+        private final TrigramIndex index = new TrigramIndex();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            for (int i = 1; i <= ROWS; i++) {
+                index.put(UUID.randomUUID(), "User" + i);
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.pitang.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pitang.auth.AuthenticatedUser;
+import com.pitang.auth.TokenService;
+import com.pitang.config.property.DesafioApiProperty;
+import com.pitang.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/*
+ ****
+ * Custo de autenticar uma requisição: token conferido pelo HMAC (cache de principals de
+ * tamanho 0, alternando entre 1024 tokens), token já validado (cache quente) e, para
+ * comparação, a busca de uma sessão por chave primária numa tabela do banco, como faria uma
+ * sessão guardada no servidor. O H2 roda no mesmo processo: um banco de verdade soma a ida
+ * e volta pela rede a essa busca.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenValidationBenchmark {
+
+    private static final int SESSIONS = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+    private TokenService uncached;
+    private TokenService cached;
+    private String token;
+    private String[] tokens;
+    private int next;
+    private String sessionId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("desafio-pitang.auth.secret=benchmark");
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        cached = context.getBean(TokenService.class);
+        DesafioApiProperty property = new DesafioApiProperty();
+        property.getAuth().setSecret("benchmark");
+        property.getAuth().setPrincipalCacheSize(0);
+        uncached = new TokenService(property, context.getBean(ObjectMapper.class),
+                new SimpleMeterRegistry());
+
+        User user = BenchmarkContext.newUser();
+        user.setId(UUID.randomUUID());
+        token = cached.issue(user);
+        tokens = new String[1024];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = uncached.issue(user);
+        }
+
+        jdbcTemplate.execute("create table session (id varchar(36) primary key, user_id uuid, login varchar(255), "
+                + "expires_at bigint)");
+        for (int i = 0; i < SESSIONS; i++) {
+            sessionId = UUID.randomUUID().toString();
+            jdbcTemplate.update("insert into session values (?, ?, ?, ?)", sessionId, user.getId(), user.getLogin(),
+                    Long.MAX_VALUE);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<AuthenticatedUser> tokenHmac() {
+        return uncached.validate(tokens[next++ & (tokens.length - 1)]);
+    }
+
+    @Benchmark
+    public Optional<AuthenticatedUser> tokenCached() {
+        return cached.validate(token);
+    }
+
+    @Benchmark
+    public AuthenticatedUser databaseSession() {
+        return jdbcTemplate.queryForObject("select user_id, login, expires_at from session where id = ?",
+                (rs, row) -> new AuthenticatedUser(rs.getObject(1, UUID.class), rs.getString(2), sessionId,
+                        rs.getLong(3)), sessionId);
+    }
+}
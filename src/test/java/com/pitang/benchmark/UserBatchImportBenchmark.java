@@ -0,0 +1,69 @@
+package com.pitang.benchmark;
+
+import com.pitang.model.User;
+import com.pitang.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ ****
+ * Compara o cadastro de usuários um a um (como N chamadas ao POST /users) com o
+ * cadastro em lote (POST /users/batch).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UserBatchImportBenchmark {
+
+    @Param({"100", "1000"})
+    public int users;
+
+    @Param({"2"})
+    public int carsPerUser;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        userService = context.getBean(UserService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int singleItemLoop() {
+        List<User> batch = BenchmarkContext.newUsers(users, carsPerUser);
+        for (User user : batch) {
+            userService.save(user);
+        }
+        return batch.size();
+    }
+
+    @Benchmark
+    public int batch() {
+        return userService.saveAll(BenchmarkContext.newUsers(users, carsPerUser)).size();
+    }
+}
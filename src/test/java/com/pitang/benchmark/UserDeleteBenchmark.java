@@ -0,0 +1,66 @@
+package com.pitang.benchmark;
+
+import com.pitang.model.User;
+import com.pitang.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/*
+ ****
+ * Tempo de DELETE de um usuário com 10 e com 10 mil carros (UserService.delete): um UPDATE
+ * desassocia os carros, que são relidos em blocos para os eventos do outbox.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UserDeleteBenchmark {
+
+    @Param({"10", "10000"})
+    public int cars;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private UUID userId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        userService = context.getBean(UserService.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void seedUser() {
+        User user = BenchmarkContext.newUser();
+        user.setCars(BenchmarkContext.newCars(cars));
+        userId = userService.saveAll(Collections.singletonList(user)).get(0).getItem().getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void delete() {
+        userService.delete(userId);
+    }
+}
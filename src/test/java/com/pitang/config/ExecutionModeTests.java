@@ -0,0 +1,39 @@
+package com.pitang.config;
+
+import com.pitang.config.property.DesafioApiProperty.Execution;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExecutionModeTests {
+
+    @Test
+    public void platformModeKeepsHikariDefaultsUnlessSizeIsGiven() {
+        Execution execution = new Execution();
+        assertThat(ExecutionModeConfig.poolSize(execution, 8)).isZero();
+
+        execution.setDbPoolSize(20);
+        assertThat(ExecutionModeConfig.poolSize(execution, 8)).isEqualTo(20);
+    }
+
+    @Test
+    public void virtualModeSizesPoolFromCores() {
+        Execution execution = new Execution();
+        execution.setMode(Execution.Mode.VIRTUAL);
+        assertThat(ExecutionModeConfig.poolSize(execution, 8)).isEqualTo(17);
+    }
+
+    @Test
+    public void virtualThreadsFallBackWhenUnavailable() throws Exception {
+        ExecutorService executor = ExecutionModeConfig.newVirtualThreadPerTaskExecutor();
+        if (Runtime.version().feature() >= 21) {
+            assertThat(executor).isNotNull();
+            assertThat(executor.submit(() -> Thread.currentThread().toString()).get()).contains("Virtual");
+            executor.shutdown();
+        } else {
+            assertThat(executor).isNull();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.pitang.config;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+ ****
+ * O endpoint do Prometheus deve trazer os timers da aplicação, o pool do Hikari, as
+ * estatísticas do Hibernate e as regiões do cache de segundo nível.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class MetricsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void prometheusEndpointExposesApplicationMetrics() throws Exception {
+        mockMvc.perform(get("/users")).andExpect(status().isOk());
+        mockMvc.perform(get("/cars")).andExpect(status().isOk());
+
+        String body = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(body)
+                .contains("desafio_method_seconds_bucket{")
+                .contains("layer=\"repository\"")
+                .contains("class=\"UserRepository\",")
+                .contains("method=\"findAll\"")
+                .contains("layer=\"service\"")
+                .contains("http_server_requests_seconds_bucket{")
+                .contains("hikaricp_connections_active")
+                .contains("hibernate_sessions_open_total")
+                .contains("cache_evictions_total{")
+                .contains("cache=\"user-cars\"");
+    }
+}
@@ -0,0 +1,103 @@
+package com.pitang.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pitang.model.Car;
+import com.pitang.model.User;
+import com.pitang.repository.CarRepository;
+import com.pitang.service.UserService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import static com.pitang.TestFixtures.car;
+import static com.pitang.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+ ****
+ * Cadastro de carros em lote e transferência/desassociação de vários carros de uma vez.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class BulkCarOperationsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void batchCreateRejectsDuplicatePlatesAndUnknownOwners() throws Exception {
+        User owner = userService.save(user("bulk.create"));
+        String body = "["
+                + "{\"year\":2019,\"licensePlate\":\"BLK-0001\",\"model\":\"Bulk\",\"color\":\"Red\","
+                + "\"user\":{\"id\":\"" + owner.getId() + "\"}},"
+                + "{\"year\":2019,\"licensePlate\":\"BLK-0001\",\"model\":\"Bulk\",\"color\":\"Red\"},"
+                + "{\"year\":2019,\"licensePlate\":\"BLK-0002\",\"model\":\"Bulk\",\"color\":\"Red\","
+                + "\"user\":{\"id\":\"" + UUID.randomUUID() + "\"}}]";
+
+        mockMvc.perform(post("/cars/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[1].errors[0].errorCode").value("3"))
+                .andExpect(jsonPath("$[2].errors[0].errorCode").value("13"));
+
+        mockMvc.perform(get("/users/" + owner.getId()))
+                .andExpect(jsonPath("$.cars[0].licensePlate").value("BLK-0001"));
+    }
+
+    @Test
+    public void reassignAndDetachCarsInBulk() throws Exception {
+        User from = userService.save(user("bulk.from", car("BLK-0101"), car("BLK-0102"), car("BLK-0103")));
+        User to = userService.save(user("bulk.to"));
+        UUID first = from.getCars().get(0).getId();
+        UUID second = from.getCars().get(1).getId();
+
+        mockMvc.perform(get("/users/" + from.getId())).andExpect(jsonPath("$.cars", hasSize(3)));
+        mockMvc.perform(get("/users/" + to.getId())).andExpect(jsonPath("$.cars", hasSize(0)));
+
+        mockMvc.perform(put("/users/" + to.getId() + "/cars").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Arrays.asList(first, second, UUID.randomUUID()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", containsInAnyOrder(first.toString(), second.toString())));
+
+        mockMvc.perform(get("/users/" + from.getId())).andExpect(jsonPath("$.cars", hasSize(1)));
+        mockMvc.perform(get("/users/" + to.getId())).andExpect(jsonPath("$.cars", hasSize(2)));
+        Car moved = carRepository.findById(first).get();
+        assertThat(moved.getUser().getId()).isEqualTo(to.getId());
+        assertThat(moved.getVersion()).isEqualTo(1L);
+
+        UUID notOwned = from.getCars().get(2).getId();
+        mockMvc.perform(put("/users/" + to.getId() + "/disassociate-cars").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Arrays.asList(first, notOwned))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", containsInAnyOrder(first.toString())));
+
+        assertThat(carRepository.findById(first).get().getUser()).isNull();
+        assertThat(carRepository.findById(notOwned).get().getUser().getId()).isEqualTo(from.getId());
+        mockMvc.perform(get("/users/" + to.getId())).andExpect(jsonPath("$.cars", hasSize(1)));
+    }
+}
@@ -0,0 +1,89 @@
+package com.pitang.controller;
+
+import com.pitang.model.Car;
+import com.pitang.model.User;
+import com.pitang.service.CarService;
+import com.pitang.service.CarService;
+import com.pitang.service.UserService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+
+import static com.pitang.TestFixtures.car;
+import static com.pitang.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+ ****
+ * Busca por modelo na visão compacta: userId no lugar do usuário aninhado, sem carregar
+ * os usuários.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "desafio-pitang.outbox.relay-enabled=false"})
+@AutoConfigureMockMvc
+public class CompactViewTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    public void compactViewReturnsUserIdOnly() throws Exception {
+        Car car = car("CMP-0001");
+        car.setModel("CompactModel");
+        User user = userService.save(user("compact", car));
+
+        mockMvc.perform(get("/cars?model=CompactModel"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].user.login").value("compact"));
+
+        mockMvc.perform(get("/cars?model=CompactModel&view=compact"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].licensePlate").value("CMP-0001"))
+                .andExpect(jsonPath("$.content[0].userId").value(user.getId().toString()))
+                .andExpect(jsonPath("$.content[0].user").doesNotExist());
+    }
+
+    @Test
+    public void compactViewDoesNotLoadUsers() throws Exception {
+        Car owned = car("CMP-0002");
+        owned.setModel("Projected");
+        userService.save(user("projected", owned));
+        Car ownerless = car("CMP-0003");
+        ownerless.setModel("Projected");
+        carService.save(ownerless);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(get("/cars?model=Projected&view=compact&sort=licensePlate"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(jsonPath("$.content[0].licensePlate").value("CMP-0002"))
+                .andExpect(jsonPath("$.content[1].licensePlate").value("CMP-0003"))
+                .andExpect(jsonPath("$.content[1].userId").doesNotExist());
+
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+}
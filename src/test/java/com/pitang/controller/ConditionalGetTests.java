@@ -0,0 +1,132 @@
+package com.pitang.controller;
+
+import com.pitang.model.Car;
+import com.pitang.model.User;
+import com.pitang.service.CarService;
+import com.pitang.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+
+import static com.pitang.TestFixtures.car;
+import static com.pitang.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+ ****
+ * GET condicional: 304 com If-None-Match igual ao ETag, respostas por id servidas do
+ * cache sem consultar o banco, e invalidação pelas alterações nos serviços.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ConditionalGetTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void repeatedGetIsServedFromCacheAndRevalidatedWith304() throws Exception {
+        Car car = carService.save(car("CND-0001"));
+        String etag = etagOf("/cars/" + car.getId());
+        assertThat(etag).startsWith("\"0.");
+
+        Timer findById = meterRegistry.get("desafio.method")
+                .tags("class", "CarRepository", "method", "findById").timer();
+        long lookups = findById.count();
+
+        mockMvc.perform(get("/cars/" + car.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        mockMvc.perform(get("/cars/" + car.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(jsonPath("$.licensePlate").value("CND-0001"));
+
+        assertThat(findById.count()).isEqualTo(lookups);
+    }
+
+    @Test
+    public void carUpdateInvalidatesCarAndOwnerRepresentations() throws Exception {
+        User user = userService.save(user("conditional.owner", car("CND-0002")));
+        Car car = user.getCars().get(0);
+        String carEtag = etagOf("/cars/" + car.getId());
+        String userEtag = etagOf("/users/" + user.getId());
+
+        Car changed = car("CND-0002");
+        changed.setUser(user);
+        changed.setColor("Red");
+        carService.update(car.getId(), changed);
+
+        mockMvc.perform(get("/cars/" + car.getId()).header(HttpHeaders.IF_NONE_MATCH, carEtag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.color").value("Red"));
+        mockMvc.perform(get("/users/" + user.getId()).header(HttpHeaders.IF_NONE_MATCH, userEtag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andExpect(jsonPath("$.cars[0].color").value("Red"));
+    }
+
+    @Test
+    public void disassociatingCarInvalidatesFormerOwner() throws Exception {
+        User user = userService.save(user("conditional.former", car("CND-0003")));
+        Car car = user.getCars().get(0);
+        etagOf("/users/" + user.getId());
+
+        userService.disassociateCar(user.getId(), car.getId());
+
+        mockMvc.perform(get("/users/" + user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cars").isEmpty());
+    }
+
+    @Test
+    public void userEtagIsAcceptedAsIfMatch() throws Exception {
+        User user = userService.save(user("conditional.ifmatch", car("CND-0004")));
+        String etag = etagOf("/users/" + user.getId());
+
+        mockMvc.perform(put("/users/" + user.getId()).header(HttpHeaders.IF_MATCH, etag)
+                .contentType("application/json")
+                .content("{\"firstName\":\"Put\",\"lastName\":\"Match\",\"email\":\"conditional.ifmatch@test.com\","
+                        + "\"login\":\"conditional.ifmatch\",\"password\":\"secret\",\"phone\":\"81999999999\"}"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void listingsAreRevalidatedWithContentEtag() throws Exception {
+        String etag = mockMvc.perform(get("/cars?size=5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/cars?size=5").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    private String etagOf(String uri) throws Exception {
+        return mockMvc.perform(get(uri)).andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
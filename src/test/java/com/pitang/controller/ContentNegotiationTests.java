@@ -0,0 +1,90 @@
+package com.pitang.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pitang.controller.support.ContentFormats;
+import com.pitang.model.Car;
+import com.pitang.service.CarService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.pitang.TestFixtures.car;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+ ****
+ * CBOR e Smile na leitura e na escrita; JSON continua sendo o padrão.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ContentNegotiationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ContentFormats formats;
+
+    @Autowired
+    private CarService carService;
+
+    @Test
+    public void pagesAndResourcesAreEncodedAsRequested() throws Exception {
+        Car car = carService.save(car("BIN-0001"));
+        ObjectMapper cbor = formats.mapper(ContentFormats.CBOR);
+        ObjectMapper smile = formats.mapper(ContentFormats.SMILE);
+
+        byte[] page = mockMvc.perform(get("/cars?size=5").accept(ContentFormats.CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(ContentFormats.CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(cbor.readTree(page).get("content").isArray()).isTrue();
+
+        byte[] resource = mockMvc.perform(get("/cars/" + car.getId()).accept(ContentFormats.SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(ContentFormats.SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(smile.readTree(resource).get("licensePlate").asText()).isEqualTo("BIN-0001");
+
+        mockMvc.perform(get("/cars/" + car.getId()).header(HttpHeaders.ACCEPT, "*/*"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mockMvc.perform(get("/cars?size=5").header(HttpHeaders.ACCEPT, "*/*"))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    public void postAcceptsCborBody() throws Exception {
+        Map<String, Object> user = new LinkedHashMap<>();
+        user.put("firstName", "Binary");
+        user.put("email", "binary@test.com");
+        user.put("login", "binary");
+        user.put("password", "secret");
+        user.put("phone", "81999999999");
+        ObjectMapper cbor = formats.mapper(ContentFormats.CBOR);
+
+        byte[] created = mockMvc.perform(post("/users").contentType(ContentFormats.CBOR)
+                .accept(ContentFormats.CBOR).content(cbor.writeValueAsBytes(user)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode body = cbor.readTree(created);
+        assertThat(body.get("login").asText()).isEqualTo("binary");
+        assertThat(body.get("id").isNull()).isFalse();
+    }
+}
@@ -0,0 +1,139 @@
+package com.pitang.controller;
+
+import com.pitang.controller.support.KeysetFlux;
+import com.pitang.model.User;
+import com.pitang.repository.CarRepository;
+import com.pitang.service.UserService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.pitang.TestFixtures.car;
+import static com.pitang.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+ ****
+ * API reativa: listagem em stream, listagem em array, busca por id e consulta das páginas
+ * sob demanda.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "desafio-pitang.reactive.max-array-size=3")
+@AutoConfigureMockMvc
+public class ReactiveReadTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Test
+    public void streamsEveryCar() throws Exception {
+        User user = userService.save(userWithTwoCars("reactive.stream"));
+
+        String body = dispatch(get("/reactive/cars").accept(MediaType.APPLICATION_STREAM_JSON));
+
+        List<String> lines = Arrays.stream(body.split("\n")).filter(line -> !line.isEmpty()).collect(Collectors.toList());
+        assertThat(lines).hasSize((int) carRepository.count());
+        user.getCars().forEach(car -> assertThat(body).contains(car.getId().toString()));
+    }
+
+    @Test
+    public void collectsLimitedListingAsJsonArray() throws Exception {
+        userService.save(userWithTwoCars("reactive.array"));
+
+        MvcResult result = mockMvc.perform(get("/reactive/cars?limit=2").accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    public void jsonArrayIsCappedWithoutLimit() throws Exception {
+        userService.save(userWithTwoCars("reactive.cap1"));
+        userService.save(userWithTwoCars("reactive.cap2"));
+
+        for (String uri : new String[] { "/reactive/cars", "/reactive/cars?limit=10", "/reactive/users?limit=0" }) {
+            MvcResult result = mockMvc.perform(get(uri).accept(MediaType.APPLICATION_JSON))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(3));
+        }
+    }
+
+    @Test
+    public void findsUserWithCarsById() throws Exception {
+        User user = userService.save(userWithTwoCars("reactive.byid"));
+
+        MvcResult found = mockMvc.perform(get("/reactive/users/" + user.getId()))
+                .andExpect(request().asyncStarted()).andReturn();
+        mockMvc.perform(asyncDispatch(found))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.login").value("reactive.byid"))
+                .andExpect(jsonPath("$.cars.length()").value(2));
+
+        MvcResult missing = mockMvc.perform(get("/reactive/cars/" + UUID.randomUUID()))
+                .andExpect(request().asyncStarted()).andReturn();
+        mockMvc.perform(asyncDispatch(missing)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void fetchesPagesOnlyOnDemand() {
+        List<UUID> ids = IntStream.range(0, 10).mapToObj(i -> new UUID(0, i)).collect(Collectors.toList());
+        AtomicInteger queries = new AtomicInteger();
+
+        StepVerifier.create(KeysetFlux.<UUID, UUID>of(null, 3, (after, page) -> {
+            queries.incrementAndGet();
+            return ids.stream().filter(id -> after == null || id.compareTo(after) > 0)
+                    .limit(page.getPageSize()).collect(Collectors.toList());
+        }, id -> id, id -> id), 1)
+                .expectNext(ids.get(0))
+                .then(() -> assertThat(queries).hasValue(1))
+                .thenRequest(3)
+                .expectNext(ids.get(1), ids.get(2), ids.get(3))
+                .then(() -> assertThat(queries).hasValue(2))
+                .thenRequest(Long.MAX_VALUE)
+                .expectNextCount(6)
+                .verifyComplete();
+        assertThat(queries).hasValue(4);
+    }
+
+    private String dispatch(RequestBuilder builder) throws Exception {
+        MvcResult result = mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+        result.getAsyncResult();
+        return mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private static User userWithTwoCars(String login) {
+        return user(login, car(login + "-0"), car(login + "-1"));
+    }
+}
@@ -0,0 +1,102 @@
+package com.pitang.event;
+
+import com.pitang.config.DomainEventsConfig;
+import com.pitang.model.User;
+import com.pitang.service.UserService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.pitang.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ ****
+ * Listeners de EntityChangedEvent rodam depois do commit, no executor de eventos, e não
+ * recebem nada de transações desfeitas.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class DomainEventsTests {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private RecordingListener listener;
+
+    @Before
+    public void setUp() {
+        listener.received().clear();
+    }
+
+    @Test
+    public void listenerRunsAfterCommitOffTheCallerThread() throws InterruptedException {
+        User user = userService.save(user("events.commit"));
+
+        Received received = listener.received().poll(5, TimeUnit.SECONDS);
+        assertThat(received).isNotNull();
+        assertThat(received.event.getAggregateId()).isEqualTo(user.getId());
+        assertThat(received.event.getChange()).isEqualTo(EntityChangedEvent.Change.CREATED);
+        assertThat(received.thread).startsWith("domain-events-");
+    }
+
+    @Test
+    public void rolledBackChangesAreNotDelivered() throws InterruptedException {
+        new TransactionTemplate(transactionManager).execute(status -> {
+            userService.save(user("events.rollback"));
+            status.setRollbackOnly();
+            return null;
+        });
+
+        assertThat(listener.received().poll(500, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    static class Received {
+        final EntityChangedEvent event;
+        final String thread;
+
+        Received(EntityChangedEvent event, String thread) {
+            this.event = event;
+            this.thread = thread;
+        }
+    }
+
+    static class RecordingListener {
+        private final BlockingQueue<Received> received = new LinkedBlockingQueue<>();
+
+        public BlockingQueue<Received> received() {
+            return received;
+        }
+
+        @Async(DomainEventsConfig.EXECUTOR)
+        @TransactionalEventListener
+        public void onEntityChanged(EntityChangedEvent event) {
+            received.add(new Received(event, Thread.currentThread().getName()));
+        }
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        RecordingListener recordingListener() {
+            return new RecordingListener();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.pitang.mapper;
+
+import com.pitang.model.Car;
+import com.pitang.model.User;
+import com.pitang.model.dto.CarDTO;
+import com.pitang.model.dto.UserDTO;
+import com.pitang.model.dto.UserDetailDTO;
+import org.junit.Test;
+import org.modelmapper.ModelMapper;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.UUID;
+
+import static com.pitang.TestFixtures.car;
+import static com.pitang.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ ****
+ * Os mappers escritos à mão devem produzir o mesmo resultado do ModelMapper.
+ */
+public class MapperTests {
+
+    private final ModelMapper modelMapper = new ModelMapper();
+    private final CarMapper carMapper = new CarMapper();
+    private final UserMapper userMapper = new UserMapper(carMapper);
+
+    @Test
+    public void carMapperMatchesModelMapper() {
+        Car car = persistedCar(persistedUser());
+
+        assertThat(carMapper.toDTO(car)).isEqualToComparingFieldByField(modelMapper.map(car, CarDTO.class));
+    }
+
+    @Test
+    public void carMapperHandlesCarWithoutUser() {
+        assertThat(carMapper.toDTO(persistedCar(null)).getUserId()).isNull();
+    }
+
+    @Test
+    public void userMapperMatchesModelMapper() {
+        User user = persistedUser();
+
+        assertThat(userMapper.toDTO(user)).isEqualToComparingFieldByField(modelMapper.map(user, UserDTO.class));
+    }
+
+    @Test
+    public void userDetailMapperMatchesModelMapper() {
+        User user = persistedUser();
+        user.setCars(Collections.singletonList(persistedCar(user)));
+
+        UserDetailDTO expected = modelMapper.map(user, UserDetailDTO.class);
+        UserDetailDTO actual = userMapper.toDetailDTO(user);
+
+        assertThat(actual).isEqualToIgnoringGivenFields(expected, "cars");
+        assertThat(actual.getCars()).hasSize(1);
+        assertThat(actual.getCars().get(0)).isEqualToComparingFieldByField(expected.getCars().get(0));
+    }
+
+    private static User persistedUser() {
+        User user = user("hello.world");
+        user.setId(UUID.randomUUID());
+        user.setBirthday(new Date());
+        return user;
+    }
+
+    private static Car persistedCar(User owner) {
+        Car car = car("PDV-0625");
+        car.setId(UUID.randomUUID());
+        car.setUser(owner);
+        return car;
+    }
+}
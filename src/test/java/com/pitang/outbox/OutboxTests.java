@@ -0,0 +1,149 @@
+package com.pitang.outbox;
+
+import com.pitang.model.OutboxMessage;
+import com.pitang.model.User;
+import com.pitang.repository.OutboxRepository;
+import com.pitang.service.UserService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static com.pitang.TestFixtures.car;
+import static com.pitang.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/*
+ ****
+ * Alterações gravadas no outbox junto com a entidade e entregues em ordem, pelo menos
+ * uma vez.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "desafio-pitang.outbox.relay-enabled=false",
+        // Banco próprio: os relays de outros contextos de teste não drenam este outbox
+        "spring.datasource.url=jdbc:h2:mem:outboxtests;DB_CLOSE_DELAY=-1" })
+public class OutboxTests {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private OutboxRelay relay;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private InMemorySink sink;
+
+    @Before
+    public void setUp() {
+        relay.drain();
+        sink.clear();
+    }
+
+    @Test
+    public void changesAreDeliveredInOrderAndMarkedDelivered() {
+        User user = userService.save(user("outbox.order", car("OBX-outbox.order")));
+        UUID carId = user.getCars().get(0).getId();
+        user.setFirstName("Changed");
+        userService.update(user.getId(), user);
+
+        assertThat(relay.drain()).isEqualTo(3);
+        assertThat(sink.messages()).extracting("aggregateType", "aggregateId", "eventType").containsExactly(
+                tuple("User", user.getId(), "CREATED"),
+                tuple("Car", carId, "CREATED"),
+                tuple("User", user.getId(), "UPDATED"));
+        assertThat(sink.messages().get(2).getPayload()).contains("\"firstName\":\"Changed\"");
+        assertThat(outboxRepository.countByDeliveredAtIsNull()).isZero();
+    }
+
+    @Test
+    public void rolledBackChangesAreNotWritten() {
+        new TransactionTemplate(transactionManager).execute(status -> {
+            userService.save(user("outbox.rollback", car("OBX-outbox.rollback")));
+            status.setRollbackOnly();
+            return null;
+        });
+
+        assertThat(outboxRepository.countByDeliveredAtIsNull()).isZero();
+    }
+
+    @Test
+    public void failedBatchIsRetriedFromTheSameMessage() {
+        userService.save(user("outbox.retry", car("OBX-outbox.retry")));
+        sink.failNext();
+
+        assertThat(relay.drain()).isZero();
+        assertThat(outboxRepository.countByDeliveredAtIsNull()).isEqualTo(2);
+
+        assertThat(relay.drain()).isEqualTo(2);
+        assertThat(sink.messages()).extracting("eventType").containsExactly("CREATED", "CREATED");
+    }
+
+    @Test
+    public void batchImportWritesOneMessagePerEntity() {
+        List<User> users = Arrays.asList(
+                user("outbox.batch1", car("OBX-outbox.batch1")), user("outbox.batch2", car("OBX-outbox.batch2")));
+        userService.saveAll(users);
+
+        relay.drain();
+        assertThat(sink.messages()).hasSize(4);
+        assertThat(sink.messages().stream().map(OutboxMessage::getAggregateType).collect(Collectors.toList()))
+                .containsExactly("User", "Car", "User", "Car");
+    }
+
+    static class InMemorySink implements OutboxSink {
+
+        private final List<OutboxMessage> messages = new ArrayList<>();
+        private boolean failNext;
+
+        @Override
+        public synchronized void send(List<OutboxMessage> batch) {
+            if (failNext) {
+                failNext = false;
+                throw new IllegalStateException("sink down");
+            }
+            messages.addAll(batch);
+        }
+
+        synchronized List<OutboxMessage> messages() {
+            return new ArrayList<>(messages);
+        }
+
+        synchronized void clear() {
+            messages.clear();
+        }
+
+        synchronized void failNext() {
+            failNext = true;
+        }
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        @Primary
+        InMemorySink inMemorySink() {
+            return new InMemorySink();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.pitang.ratelimit;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+ ****
+ * Limite por cliente: 3 fichas, repostas a 1 por segundo; a busca custa as 3 de uma vez.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "desafio-pitang.rate-limit.capacity=3",
+        "desafio-pitang.rate-limit.refill-per-second=1",
+        "desafio-pitang.rate-limit.search-cost=3",
+        "desafio-pitang.rate-limit.api-keys=empty-bucket,other-client,searcher,monitor"})
+@AutoConfigureMockMvc
+public class RateLimitTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void rejectsWithRetryAfterWhenBucketIsEmpty() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/cars").header("X-API-Key", "empty-bucket"))
+                    .andExpect(status().isOk());
+        }
+        mockMvc.perform(get("/cars").header("X-API-Key", "empty-bucket"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(jsonPath("$[0].errorCode").value("9"));
+
+        mockMvc.perform(get("/cars").header("X-API-Key", "other-client"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void unknownApiKeysShareTheIpBucket() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/cars").header("X-API-Key", UUID.randomUUID().toString()).with(from("10.0.0.1")))
+                    .andExpect(status().isOk());
+        }
+        mockMvc.perform(get("/cars").header("X-API-Key", UUID.randomUUID().toString()).with(from("10.0.0.1")))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    public void searchCostsMoreTokens() throws Exception {
+        mockMvc.perform(get("/cars?model=Any").header("X-API-Key", "searcher"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/cars").header("X-API-Key", "searcher"))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    public void actuatorIsNotLimited() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(get("/actuator/health").header("X-API-Key", "monitor"))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroRefillIsRejected() {
+        new TokenBuckets(16, 3, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroCapacityIsRejected() {
+        new TokenBuckets(16, 0, 1);
+    }
+
+    @Test
+    public void bucketRefillsOverTime() {
+        AtomicLong clock = new AtomicLong();
+        TokenBuckets buckets = new TokenBuckets(16, 2, 10, clock::get);
+
+        assertEquals(0, buckets.tryAcquire("a", 1));
+        assertEquals(0, buckets.tryAcquire("a", 1));
+        long wait = buckets.tryAcquire("a", 1);
+        assertEquals(100_000_000L, wait);
+
+        clock.addAndGet(wait);
+        assertEquals(0, buckets.tryAcquire("a", 1));
+        assertTrue(buckets.tryAcquire("a", 1) > 0);
+    }
+
+    private static RequestPostProcessor from(String remoteAddr) {
+        return request -> {
+            request.setRemoteAddr(remoteAddr);
+            return request;
+        };
+    }
+}
@@ -0,0 +1,61 @@
+package com.pitang.repository;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ ****
+ * Confere no EXPLAIN do H2 que as consultas mais frequentes usam os índices criados pelas
+ * migrations (db/migration) e não percorrem a tabela inteira (tableScan).
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "desafio-pitang.outbox.relay-enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:queryplantests;DB_CLOSE_DELAY=-1"})
+public class QueryPlanTests {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void userByEmailUsesUniqueIndex() {
+        assertThat(plan("select id from user where email = 'a@test.com'")).contains("UK_USER_EMAIL");
+    }
+
+    @Test
+    public void userByLoginUsesUniqueIndex() {
+        assertThat(plan("select id from user where login in ('a', 'b')")).contains("UK_USER_LOGIN");
+    }
+
+    @Test
+    public void carByLicensePlateUsesUniqueIndex() {
+        assertThat(plan("select id from car where license_plate = 'PLT-1'")).contains("UK_CAR_LICENSE_PLATE");
+    }
+
+    @Test
+    public void carsOfUserUseForeignKeyIndex() {
+        String byOwner = "where user_id = '00000000-0000-0000-0000-000000000001'";
+        assertThat(plan("select id from car " + byOwner)).contains("IDX_CAR_USER_ID");
+        assertThat(plan("update car set user_id = null, version = version + 1 " + byOwner))
+                .contains("IDX_CAR_USER_ID");
+    }
+
+    @Test
+    public void pendingOutboxMessagesUseIndex() {
+        assertThat(plan("select id from outbox_message where delivered_at is null order by id limit 100"))
+                .contains("IDX_OUTBOX_PENDING");
+    }
+
+    private String plan(String sql) {
+        String plan = jdbcTemplate.queryForObject("explain " + sql, String.class);
+        assertThat(plan).doesNotContain("tableScan");
+        return plan;
+    }
+}
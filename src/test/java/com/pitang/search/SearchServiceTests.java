@@ -0,0 +1,79 @@
+package com.pitang.search;
+
+import com.pitang.model.Car;
+import com.pitang.model.User;
+import com.pitang.service.UserService;
+import com.pitang.service.support.InClauses;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static com.pitang.TestFixtures.car;
+import static com.pitang.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ ****
+ * Busca com mais resultados do que cabem num IN: a página é montada sem passar
+ * todos os ids ao banco e o total é o número de resultados do índice.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "desafio-pitang.outbox.relay-enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:searchservicetests;DB_CLOSE_DELAY=-1"})
+public class SearchServiceTests {
+
+    private static final int MATCHES = InClauses.LIMIT + 500;
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private UserService userService;
+
+    @Test
+    public void pagesManyMatchesWithoutSort() {
+        List<UUID> ids = seed("Paged");
+
+        Page<Car> page = searchService.findCarsByModel("Paged", PageRequest.of(3, 20));
+
+        assertThat(page.getTotalElements()).isEqualTo(MATCHES);
+        assertThat(page.getContent()).extracting(Car::getId)
+                .containsExactlyElementsOf(ids.stream().sorted().skip(60).limit(20).collect(Collectors.toList()));
+        assertThat(searchService.findCarsByModel("Paged", PageRequest.of(MATCHES / 20 + 1, 20)))
+                .isEmpty();
+    }
+
+    @Test
+    public void pagesManyMatchesWithSort() {
+        seed("Ordered");
+
+        Page<Car> page = searchService.findCarsByModel("Ordered",
+                PageRequest.of(0, 20, Sort.by("licensePlate")));
+
+        assertThat(page.getTotalElements()).isEqualTo(MATCHES);
+        assertThat(page.getContent()).hasSize(20);
+        assertThat(page.getContent().get(0).getLicensePlate()).isEqualTo("Ordered-0");
+    }
+
+    private List<UUID> seed(String model) {
+        User user = user("search" + model);
+        for (int i = 0; i < MATCHES; i++) {
+            Car car = car(model + "-" + i);
+            car.setModel(model);
+            user.getCars().add(car);
+        }
+        user = userService.saveAll(Collections.singletonList(user)).get(0).getItem();
+        return user.getCars().stream().map(Car::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,64 @@
+package com.pitang.search;
+
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TrigramIndexTests {
+
+    private final TrigramIndex index = new TrigramIndex();
+
+    @Test
+    public void findsValuesContainingTermIgnoringCase() {
+        UUID audi = UUID.randomUUID();
+        UUID ka = UUID.randomUUID();
+        index.put(audi, "Audi A4");
+        index.put(ka, "Ford Ka");
+
+        assertThat(index.search("UDI")).containsExactly(audi);
+        assertThat(index.search("ord k")).containsExactly(ka);
+        assertThat(index.search("fiat")).isEmpty();
+    }
+
+    @Test
+    public void confirmsCandidatesAgainstWholeTerm() {
+        UUID id = UUID.randomUUID();
+        index.put(id, "abcxbcd");
+
+        // "abc" e "bcd" existem no valor, mas "abcd" não
+        assertThat(index.search("abcd")).isEmpty();
+    }
+
+    @Test
+    public void cannotAnswerTermsShorterThanAGram() {
+        index.put(UUID.randomUUID(), "Audi");
+
+        assertThat(index.search("au")).isNull();
+    }
+
+    @Test
+    public void updatesAndRemovalsAreReflected() {
+        UUID id = UUID.randomUUID();
+        index.put(id, "Gol");
+        index.put(id, "Uno");
+
+        assertThat(index.search("gol")).isEmpty();
+        assertThat(index.search("uno")).containsExactly(id);
+
+        index.remove(id);
+        assertThat(index.search("uno")).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    public void putIfAbsentKeepsNewerValue() {
+        UUID id = UUID.randomUUID();
+        index.put(id, "Civic");
+        index.putIfAbsent(id, "Corolla");
+
+        assertThat(index.search("civic")).containsExactly(id);
+        assertThat(index.search("corolla")).isEmpty();
+    }
+}
@@ -0,0 +1,132 @@
+package com.pitang.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pitang.controller.support.NdjsonWriter;
+import com.pitang.model.dto.CarDTO;
+import com.pitang.repository.CarRepository;
+import org.hibernate.Session;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+ ****
+ * A exportação deve manter a memória estável independente do tamanho da tabela.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ExportTests {
+
+    private static final int ROWS = 100_000;
+    private static final long MAX_HEAP_GROWTH = 16L * 1024 * 1024;
+
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Before
+    public void seed() {
+        jdbcTemplate.update("insert into car (id, year, license_plate, model, color) "
+                + "select random_uuid(), 2019, 'EXP-' || x, 'Model ' || mod(x, 100), 'Black' "
+                + "from system_range(1, " + ROWS + ")");
+    }
+
+    @After
+    public void cleanUp() {
+        jdbcTemplate.update("delete from car where license_plate like 'EXP-%'");
+    }
+
+    @Test
+    public void exportKeepsPersistenceContextAndHeapBounded() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        int[] rows = {0};
+        int[] maxManagedEntities = {0};
+        long[] heapAfterWarmUp = {0};
+        long[] heapAtEnd = {0};
+
+        carService.exportAll(car -> {
+            rows[0]++;
+            int managed = entityManager.unwrap(Session.class).getStatistics().getEntityCount();
+            maxManagedEntities[0] = Math.max(maxManagedEntities[0], managed);
+
+            if (rows[0] == ROWS / 10) {
+                heapAfterWarmUp[0] = usedHeapAfterGc(memory);
+            } else if (rows[0] == ROWS - 1) {
+                heapAtEnd[0] = usedHeapAfterGc(memory);
+            }
+        });
+
+        assertThat(rows[0]).isEqualTo(ROWS);
+        assertThat(maxManagedEntities[0]).isLessThanOrEqualTo(CarRepository.EXPORT_FETCH_SIZE);
+        assertThat(heapAtEnd[0] - heapAfterWarmUp[0]).isLessThan(MAX_HEAP_GROWTH);
+    }
+
+    @Test
+    public void exportEndpointWritesOneJsonObjectPerLine() throws Exception {
+        String body = mockMvc.perform(get("/cars/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(ROWS);
+        assertThat(lines[0]).startsWith("{\"id\":").endsWith("}");
+    }
+
+    @Test
+    public void writerDoesNotFlushPerRow() throws IOException {
+        int[] flushes = {0};
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                flushes[0]++;
+            }
+        };
+
+        try (NdjsonWriter writer = new NdjsonWriter(objectMapper, out)) {
+            for (int i = 0; i < 10_000; i++) {
+                CarDTO car = new CarDTO();
+                car.setLicensePlate("FLS-" + i);
+                writer.write(car);
+            }
+        }
+
+        assertThat(out.toString().split("\n")).hasSize(10_000);
+        assertThat(flushes[0]).isLessThanOrEqualTo(1);
+    }
+
+    private static long usedHeapAfterGc(MemoryMXBean memory) {
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,110 @@
+package com.pitang.service;
+
+import com.pitang.model.Car;
+import com.pitang.repository.CarRepository;
+import com.pitang.service.support.RetryOnConflict;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.pitang.TestFixtures.car;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+ ****
+ * PUT com If-Match desatualizado responde 412 e atualizações concorrentes com retry
+ * não perdem escrita.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class OptimisticLockingTests {
+
+    private static final int THREADS = 8;
+    private static final int UPDATES_PER_THREAD = 25;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private RetryOnConflict retryOnConflict;
+
+    @Test
+    public void putWithStaleIfMatchIsRejected() throws Exception {
+        Car car = carService.save(car("OPT-0001"));
+
+        String etag = mockMvc.perform(get("/cars/" + car.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, startsWith("\"0.")))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(put("/cars/" + car.getId()).header(HttpHeaders.IF_MATCH, etag)
+                .contentType(MediaType.APPLICATION_JSON).content(body("Red")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+        mockMvc.perform(put("/cars/" + car.getId()).header(HttpHeaders.IF_MATCH, "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON).content(body("Blue")))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$[0].errorCode").value("8"));
+
+        assertThat(carRepository.findById(car.getId()).get().getColor()).isEqualTo("Red");
+    }
+
+    @Test
+    public void concurrentUpdatesWithRetryDoNotLoseWrites() throws Exception {
+        Car saved = carService.save(car("OPT-0002"));
+        UUID id = saved.getId();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                    retryOnConflict.execute(100, () -> {
+                        Car car = carRepository.findById(id).get();
+                        car.setYear(car.getYear() + 1);
+                        return car;
+                    });
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        Car car = carRepository.findById(id).get();
+        assertThat(car.getYear()).isEqualTo(saved.getYear() + THREADS * UPDATES_PER_THREAD);
+        assertThat(car.getVersion()).isEqualTo((long) THREADS * UPDATES_PER_THREAD);
+    }
+
+    private static String body(String color) {
+        return "{\"year\":2000,\"licensePlate\":\"OPT-0001\",\"model\":\"Locking\",\"color\":\"" + color + "\"}";
+    }
+}
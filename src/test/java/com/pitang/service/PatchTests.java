@@ -0,0 +1,115 @@
+package com.pitang.service;
+
+import com.pitang.model.Car;
+import com.pitang.model.User;
+import com.pitang.repository.CarRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+
+import static com.pitang.TestFixtures.car;
+import static com.pitang.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+ ****
+ * PATCH com JSON Merge Patch: só os campos enviados mudam e a unicidade só é
+ * verificada para o que mudou.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class PatchTests {
+
+    private static final String MERGE_PATCH = "application/merge-patch+json";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Test
+    public void patchCarChangesOnlyGivenFields() throws Exception {
+        Car car = carService.save(car("PCH-0001"));
+
+        mockMvc.perform(patch("/cars/" + car.getId()).contentType(MERGE_PATCH).content("{\"color\":\"Red\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.color").value("Red"))
+                .andExpect(jsonPath("$.model").value(car.getModel()));
+
+        Car saved = carRepository.findById(car.getId()).get();
+        assertThat(saved.getColor()).isEqualTo("Red");
+        assertThat(saved.getLicensePlate()).isEqualTo("PCH-0001");
+        assertThat(saved.getYear()).isEqualTo(car.getYear());
+    }
+
+    @Test
+    public void unchangedUniqueValueIsNotTreatedAsDuplicate() throws Exception {
+        User user = userService.save(user("patch.same", car("PCH-patch.same")));
+
+        mockMvc.perform(patch("/users/" + user.getId()).contentType(MERGE_PATCH)
+                .content("{\"email\":\"patch.same@test.com\",\"firstName\":\"Renamed\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.firstName").value("Renamed"));
+
+        assertThat(userService.findWithCars(user.getId()).get().getCars()).hasSize(1);
+    }
+
+    @Test
+    public void changedUniqueValueIsChecked() throws Exception {
+        userService.save(user("patch.taken", car("PCH-patch.taken")));
+        User user = userService.save(user("patch.other", car("PCH-patch.other")));
+
+        mockMvc.perform(patch("/users/" + user.getId()).contentType(MERGE_PATCH)
+                .content("{\"email\":\"patch.taken@test.com\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].errorCode").value("2"));
+    }
+
+    @Test
+    public void nullOnRequiredFieldIsRejected() throws Exception {
+        Car car = carService.save(car("PCH-0002"));
+
+        mockMvc.perform(patch("/cars/" + car.getId()).contentType(MERGE_PATCH).content("{\"model\":null}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].errorCode").value("5"));
+
+        assertThat(carRepository.findById(car.getId()).get().getModel()).isEqualTo(car.getModel());
+    }
+
+    @Test
+    public void readOnlyFieldsAreRejected() throws Exception {
+        User user = userService.save(user("patch.readonly", car("PCH-patch.readonly")));
+
+        mockMvc.perform(patch("/users/" + user.getId()).contentType(MERGE_PATCH).content("{\"cars\":[]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].errorCode").value("4"));
+    }
+
+    @Test
+    public void staleIfMatchIsRejected() throws Exception {
+        Car car = carService.save(car("PCH-0003"));
+
+        mockMvc.perform(patch("/cars/" + car.getId()).header(HttpHeaders.IF_MATCH, "\"7\"")
+                .contentType(MERGE_PATCH).content("{\"color\":\"Red\"}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+}
@@ -0,0 +1,88 @@
+package com.pitang.service;
+
+import com.pitang.model.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.UUID;
+
+import static com.pitang.TestFixtures.car;
+import static com.pitang.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ ****
+ * O cache de segundo nível não pode devolver a coleção de carros antiga depois que um
+ * carro troca de dono, é removido ou o usuário é excluído.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class SecondLevelCacheTests {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @Before
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void secondReadComesFromCache() {
+        User user = userService.save(user("cache.hit", car("CCH-cache.hit")));
+
+        userService.findWithCars(user.getId());
+        long hits = statistics.getSecondLevelCacheHitCount();
+        userService.findWithCars(user.getId());
+
+        assertThat(statistics.getSecondLevelCacheHitCount()).isGreaterThan(hits);
+    }
+
+    @Test
+    public void disassociateCarEvictsUserCars() {
+        User user = userService.save(user("cache.disassociate", car("CCH-cache.disassociate")));
+        UUID carId = user.getCars().get(0).getId();
+        assertThat(userService.findWithCars(user.getId()).get().getCars()).hasSize(1);
+        assertThat(userService.findWithCars(user.getId()).get().getCars()).hasSize(1);
+
+        userService.disassociateCar(user.getId(), carId);
+
+        assertThat(userService.findWithCars(user.getId()).get().getCars()).isEmpty();
+    }
+
+    @Test
+    public void deleteCarEvictsUserCars() {
+        User user = userService.save(user("cache.delete-car", car("CCH-cache.delete-car")));
+        assertThat(userService.findWithCars(user.getId()).get().getCars()).hasSize(1);
+
+        carService.delete(user.getCars().get(0).getId());
+
+        assertThat(userService.findWithCars(user.getId()).get().getCars()).isEmpty();
+    }
+
+    @Test
+    public void deleteUserEvictsUser() {
+        User user = userService.save(user("cache.delete-user", car("CCH-cache.delete-user")));
+        assertThat(userService.findWithCars(user.getId())).isPresent();
+
+        userService.delete(user.getId());
+
+        assertThat(userService.findWithCars(user.getId())).isNotPresent();
+    }
+}
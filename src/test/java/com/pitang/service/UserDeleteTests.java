@@ -0,0 +1,119 @@
+package com.pitang.service;
+
+import com.pitang.model.Car;
+import com.pitang.model.User;
+import com.pitang.repository.CarRepository;
+import com.pitang.service.support.InClauses;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.pitang.TestFixtures.car;
+import static com.pitang.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+ ****
+ * Exclusão de usuário: os carros são desassociados por um único UPDATE, sem atualizar
+ * entidades Car uma a uma, e relidos para os eventos numa consulta por bloco de ids.
+ * O tempo com 10 mil carros é medido no UserDeleteBenchmark.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.pitang.service.UserDeleteTests$SqlRecorder",
+        "spring.jpa.show-sql=false",
+        "desafio-pitang.outbox.relay-enabled=false",
+        // Banco próprio: os carros deste teste não ficam no banco dos outros contextos
+        "spring.datasource.url=jdbc:h2:mem:userdeletetests;DB_CLOSE_DELAY=-1"})
+@AutoConfigureMockMvc
+public class UserDeleteTests {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void deleteUserWithFewCars() {
+        deleteUserWithCars(10);
+    }
+
+    @Test
+    public void deleteUserWithMoreCarsThanOneInClause() {
+        deleteUserWithCars(InClauses.LIMIT + 500);
+    }
+
+    @Test
+    public void deleteUnknownUserIsNotFound() throws Exception {
+        mockMvc.perform(delete("/users/" + UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+    }
+
+    private void deleteUserWithCars(int count) {
+        User user = user("delete" + count);
+        for (int i = 0; i < count; i++) {
+            user.getCars().add(car("DEL-" + count + "-" + i));
+        }
+        user = userService.saveAll(Collections.singletonList(user)).get(0).getItem();
+        Car first = user.getCars().get(0);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        SqlRecorder.STATEMENTS.clear();
+        userService.delete(user.getId());
+
+        assertThat(SqlRecorder.count("update car ")).isEqualTo(1);
+        assertThat(SqlRecorder.count("select ") - SqlRecorder.count("select nextval"))
+                .isEqualTo(1 + (count + InClauses.LIMIT - 1) / InClauses.LIMIT);
+        assertThat(statistics.getEntityStatistics(Car.class.getName()).getUpdateCount()).isZero();
+        assertThat(statistics.getEntityStatistics(User.class.getName()).getDeleteCount()).isEqualTo(1);
+
+        Car detached = carRepository.findById(first.getId()).get();
+        assertThat(detached.getUser()).isNull();
+        assertThat(detached.getVersion()).isEqualTo(first.getVersion() + 1);
+    }
+
+    /*
+     ****
+     * Guarda o SQL enviado ao banco: um UPDATE em massa não aparece nas estatísticas de
+     * consulta do Hibernate.
+     */
+    public static class SqlRecorder implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+
+        static long count(String prefix) {
+            return STATEMENTS.stream().filter(sql -> sql.startsWith(prefix)).count();
+        }
+    }
+}
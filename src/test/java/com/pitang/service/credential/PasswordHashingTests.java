@@ -0,0 +1,107 @@
+package com.pitang.service.credential;
+
+import com.pitang.model.User;
+import com.pitang.repository.UserRepository;
+import com.pitang.service.UserService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+
+import static com.pitang.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+ ****
+ * Senha gravada como hash bcrypt, nunca devolvida, refeita só quando muda e, no login,
+ * quando o custo configurado aumentou.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class PasswordHashingTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordHasher passwordHasher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void passwordIsHashedAndNeverSerialized() throws Exception {
+        mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"firstName\":\"Hash\",\"email\":\"hash@test.com\",\"login\":\"hash\","
+                        + "\"password\":\"secret\",\"phone\":\"81999999999\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.password").doesNotExist());
+
+        User saved = userRepository.findByLogin("hash").get();
+        assertThat(saved.getPassword()).startsWith("$2a$10$");
+        assertThat(passwordHasher.matches("secret", saved.getPassword())).isTrue();
+
+        mockMvc.perform(get("/users/" + saved.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.login").value("hash"))
+                .andExpect(jsonPath("$.password").doesNotExist());
+    }
+
+    @Test
+    public void hashChangesOnlyWhenPasswordChanges() throws Exception {
+        User user = userService.save(user("unchanged"));
+        String hash = user.getPassword();
+
+        User sameAgain = user("unchanged");
+        User updated = userService.update(user.getId(), sameAgain);
+        assertThat(updated.getPassword()).isEqualTo(hash);
+
+        mockMvc.perform(patch("/users/" + user.getId()).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"password\":\"changed\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.password").doesNotExist());
+
+        String changed = userRepository.findById(user.getId()).get().getPassword();
+        assertThat(changed).isNotEqualTo(hash);
+        assertThat(passwordHasher.matches("changed", changed)).isTrue();
+    }
+
+    @Test
+    public void loginRehashesWhenCostWasRaised() {
+        User user = userService.save(user("rehash"));
+        new TransactionTemplate(transactionManager).execute(status -> {
+            userRepository.findById(user.getId()).get().setPassword(new BCryptPasswordEncoder(4).encode("secret"));
+            return null;
+        });
+
+        assertThat(userService.authenticate("rehash", "wrong")).isEmpty();
+        assertThat(userService.authenticate("nobody", "secret")).isEmpty();
+
+        Optional<User> authenticated = userService.authenticate("rehash", "secret");
+        assertThat(authenticated).isPresent();
+        String rehashed = userRepository.findById(user.getId()).get().getPassword();
+        assertThat(rehashed).startsWith("$2a$10$");
+        assertThat(passwordHasher.needsRehash(rehashed)).isFalse();
+    }
+}
@@ -0,0 +1,159 @@
+package com.pitang.service.uniqueness;
+
+import com.pitang.model.User;
+import com.pitang.service.CarService;
+import com.pitang.service.UserService;
+import com.pitang.service.exception.CarWithLicensePlateDuplicated;
+import com.pitang.service.exception.EmailDuplicateException;
+import com.pitang.service.exception.LoginDuplicateException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.pitang.TestFixtures.car;
+import static com.pitang.TestFixtures.user;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+ ****
+ * Cadastros paralelos com o mesmo email, login ou placa: apenas um pode ser aceito.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class UniquenessConcurrencyTests {
+
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 10;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CarService carService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void parallelRegistrationsWithSameEmailAcceptOnlyOne() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            String email = "race-" + UUID.randomUUID() + "@test.com";
+            int accepted = race(thread -> {
+                User user = user("race-login-" + UUID.randomUUID());
+                user.setEmail(email);
+                userService.save(user);
+            }, EmailDuplicateException.class);
+
+            assertThat(accepted).isEqualTo(1);
+            assertThat(count("select count(*) from user where email = ?", email)).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void parallelRegistrationsWithSameLoginAcceptOnlyOne() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            String login = "race-" + UUID.randomUUID();
+            int accepted = race(thread -> {
+                User user = user(login);
+                user.setEmail("race-" + UUID.randomUUID() + "@test.com");
+                userService.save(user);
+            }, LoginDuplicateException.class);
+
+            assertThat(accepted).isEqualTo(1);
+            assertThat(count("select count(*) from user where login = ?", login)).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void parallelCarsWithSamePlateAcceptOnlyOne() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            String plate = "RACE-" + UUID.randomUUID();
+            int accepted = race(thread -> carService.save(car(plate)), CarWithLicensePlateDuplicated.class);
+
+            assertThat(accepted).isEqualTo(1);
+            assertThat(count("select count(*) from car where license_plate = ?", plate)).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void parallelRegistrationsWithDistinctValuesAreAllAccepted() throws Exception {
+        int accepted = race(thread -> {
+            userService.save(user("race-" + UUID.randomUUID(), car("RACE-" + UUID.randomUUID())));
+        }, null);
+
+        assertThat(accepted).isEqualTo(THREADS);
+    }
+
+    @Test
+    public void rolledBackReservationIsReleased() {
+        String email = "rollback-" + UUID.randomUUID() + "@test.com";
+        String login = "rollback-" + UUID.randomUUID();
+        User first = user(login, car("DUP-" + login), car("DUP-" + login));
+        first.setEmail(email);
+
+        try {
+            userService.save(first);
+        } catch (CarWithLicensePlateDuplicated expected) {
+            // a segunda placa repetida desfaz a transação inteira
+        }
+
+        User second = user(login);
+        second.setEmail(email);
+        userService.save(second);
+        assertThat(count("select count(*) from user where email = ?", email)).isEqualTo(1);
+    }
+
+    private int race(Attempt attempt, Class<? extends RuntimeException> rejection) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int thread = i;
+                Callable<Boolean> task = () -> {
+                    start.await();
+                    try {
+                        attempt.run(thread);
+                        return true;
+                    } catch (RuntimeException e) {
+                        if (rejection == null || !rejection.isInstance(e))
+                            throw e;
+                        return false;
+                    }
+                };
+                results.add(executor.submit(task));
+            }
+            start.countDown();
+
+            int accepted = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(30, TimeUnit.SECONDS))
+                    accepted++;
+            }
+            return accepted;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int count(String sql, String value) {
+        return jdbcTemplate.queryForObject(sql, Integer.class, value);
+    }
+
+    private interface Attempt {
+        void run(int thread);
+    }
+}